@@ -1,3 +1,15 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 /**
  * Main class to start the chess game application.
  * Entry point for both console-based and GUI-based chess game.
@@ -12,35 +24,254 @@ public class Main {
      *
      * @param args Command line arguments:
      *             --console or -c to run console version
+     *             --ansi to redraw only changed squares in the console version
      *             --gui or -g to run GUI version (default)
+     *             --batch FILE to validate games from FILE ("-" for stdin) without prompts
+     *             --journal FILE to record moves to FILE and recover the game from it on startup
+     *             --fsync-ms N to group-commit the journal every N milliseconds (0 = every move)
+     *             --metrics to record performance metrics (shown by the console "stats"
+     *             command and over JMX)
+     *             --positions FILE to record batch games in a position database, or show its
+     *             statistics in the GUI
+     *             --spectate PORT to let spectators watch the console game over TCP
+     *             --nnue FILE to load an evaluation network (console "eval" command)
+     *             --nnue-bench to measure evaluation speed with the --nnue network, or a
+     *             random one, and exit
+     *             --batch-bench to measure batch evaluation speed by material and with the
+     *             --nnue network, or a random one, and exit
+     *             --tune FILE to fit evaluation weights to labeled positions (FEN and result
+     *             per line) and exit
+     *             --tune-output FILE where to write the tuned weights (default eval-params.txt)
+     *             --tune-iterations N number of tuning steps (default 1000)
      */
     public static void main(String[] args) {
         // Check command line arguments
         boolean useConsole = false;
+        boolean ansi = false;
+        String batchFile = null;
+        String journalFile = null;
+        String positionsFile = null;
+        int spectatorPort = -1;
+        String networkFile = null;
+        boolean networkBenchmark = false;
+        boolean batchBenchmark = false;
+        String tuneFile = null;
+        String tuneOutput = "eval-params.txt";
+        int tuneIterations = 1000;
+        long fsyncMillis = game.GameJournal.DEFAULT_FSYNC_INTERVAL_MILLIS;
         
-        for (String arg : args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
             if (arg.equals("--console") || arg.equals("-c")) {
                 useConsole = true;
-                break;
+            } else if (arg.equals("--ansi")) {
+                ansi = true;
+            } else if (arg.equals("--batch") && i + 1 < args.length) {
+                batchFile = args[++i];
+            } else if (arg.equals("--journal") && i + 1 < args.length) {
+                journalFile = args[++i];
+            } else if (arg.equals("--fsync-ms") && i + 1 < args.length) {
+                fsyncMillis = parseOption(arg, args[++i], Integer.MAX_VALUE);
+                if (fsyncMillis < 0) {
+                    return;
+                }
+            } else if (arg.equals("--metrics")) {
+                // Must be set before metrics.Metrics is loaded, which reads it once
+                System.setProperty("chess.metrics", "true");
+            } else if (arg.equals("--positions") && i + 1 < args.length) {
+                positionsFile = args[++i];
+            } else if (arg.equals("--spectate") && i + 1 < args.length) {
+                spectatorPort = (int) parseOption(arg, args[++i], 65535);
+                if (spectatorPort < 0) {
+                    return;
+                }
+            } else if (arg.equals("--nnue") && i + 1 < args.length) {
+                networkFile = args[++i];
+            } else if (arg.equals("--nnue-bench")) {
+                networkBenchmark = true;
+            } else if (arg.equals("--batch-bench")) {
+                batchBenchmark = true;
+            } else if (arg.equals("--tune") && i + 1 < args.length) {
+                tuneFile = args[++i];
+            } else if (arg.equals("--tune-output") && i + 1 < args.length) {
+                tuneOutput = args[++i];
+            } else if (arg.equals("--tune-iterations") && i + 1 < args.length) {
+                tuneIterations = (int) parseOption(arg, args[++i], Integer.MAX_VALUE);
+                if (tuneIterations < 0) {
+                    return;
+                }
             }
         }
         
-        if (useConsole) {
+        eval.NnueNetwork network = null;
+        if (networkFile != null) {
+            try {
+                network = eval.NnueNetwork.load(Paths.get(networkFile));
+            } catch (IOException e) {
+                System.out.println("Could not load evaluation network: " + e.getMessage());
+                return;
+            }
+        }
+
+        if (tuneFile != null) {
+            runTuner(tuneFile, tuneOutput, tuneIterations);
+        } else if (networkBenchmark) {
+            eval.NnueBenchmark.run(network != null ? network : eval.NnueNetwork.random(256, 1), System.out);
+        } else if (batchBenchmark) {
+            eval.BatchBenchmark.run(network != null ? network : eval.NnueNetwork.random(256, 1), System.out);
+        } else if (batchFile != null) {
+            runBatch(batchFile, positionsFile);
+        } else if (useConsole) {
             // Launch console version
             System.out.println("Starting console chess game...");
             game.Game chessGame = new game.Game();
+            chessGame.setAnsiMode(ansi);
+            if (journalFile != null) {
+                try {
+                    chessGame.openJournal(Paths.get(journalFile), fsyncMillis);
+                } catch (IOException e) {
+                    System.out.println("Could not open game journal: " + e.getMessage());
+                    return;
+                }
+            }
+            if (network != null) {
+                chessGame.setNetwork(network);
+            }
+            if (spectatorPort >= 0) {
+                try {
+                    chessGame.openSpectatorHub(spectatorPort);
+                } catch (IOException e) {
+                    System.out.println("Could not open spectator port: " + e.getMessage());
+                    return;
+                }
+            }
             chessGame.start();
         } else {
             // Launch GUI version (default)
             System.out.println("Starting GUI chess game...");
             
             // Create and show the GUI on the Event Dispatch Thread
+            Path journal = journalFile != null ? Paths.get(journalFile) : null;
+            Path positions = positionsFile != null ? Paths.get(positionsFile) : null;
+            long journalFsyncMillis = fsyncMillis;
             javax.swing.SwingUtilities.invokeLater(() -> {
-                new gui.ChessGUI();
+                gui.ChessGUI chessGUI = new gui.ChessGUI();
+                if (journal != null) {
+                    try {
+                        chessGUI.openJournal(journal, journalFsyncMillis);
+                    } catch (IOException e) {
+                        System.out.println("Could not open game journal: " + e.getMessage());
+                    }
+                }
+                if (positions != null) {
+                    try {
+                        chessGUI.openPositionDatabase(positions);
+                    } catch (IOException e) {
+                        System.out.println("Could not open position database: " + e.getMessage());
+                    }
+                }
             });
         }
     }
-}
 
+    /**
+     * Parses the value of a numeric option, printing a usage message if it is
+     * not a whole number from 0 to max.
+     *
+     * @param option The option name.
+     * @param value The value given.
+     * @param max The largest accepted value.
+     * @return The value, or -1 if it is invalid.
+     */
+    private static long parseOption(String option, String value, long max) {
+        try {
+            long parsed = Long.parseLong(value);
+            if (parsed >= 0 && parsed <= max) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        System.out.println("Invalid value for " + option + ": " + value
+                           + " (expected a number from 0 to " + max + ")");
+        return -1;
+    }
+
+    /**
+     * Validates a file of games in batch mode and prints one result line per game.
+     *
+     * @param file The file to read, or "-" for standard input.
+     * @param positionsFile The position database to record games in, or null.
+     */
+    private static void runBatch(String file, String positionsFile) {
+        long start = System.nanoTime();
+        game.BatchRunner runner = new game.BatchRunner();
+        PrintWriter out = new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16));
+
+        db.PositionDatabase positions = null;
+        boolean failed = false;
+        try (InputStream input = file.equals("-") ? System.in : new FileInputStream(file);
+             BufferedReader reader = new BufferedReader(
+                     new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16)) {
+            if (positionsFile != null) {
+                positions = db.PositionDatabase.openForWriting(Paths.get(positionsFile),
+                                                               db.PositionDatabase.DEFAULT_CAPACITY);
+                runner.setPositionDatabase(positions);
+            }
+            runner.run(reader, out);
+        } catch (IOException e) {
+            out.flush();
+            System.err.println("Batch run failed: " + e.getMessage());
+            failed = true;
+        } finally {
+            // Commits what was recorded and releases the write lock, also after a failure
+            if (positions != null) {
+                try {
+                    positions.close();
+                } catch (IOException e) {
+                    System.err.println("Could not close position database: " + e.getMessage());
+                    failed = true;
+                }
+            }
+        }
+        if (failed) {
+            System.exit(1);
+        }
 
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.err.println("Processed " + runner.getGamesProcessed() + " games ("
+                           + runner.getGamesWithIllegalMoves() + " with illegal moves) in " + millis + " ms");
+        if (positions != null) {
+            System.err.println("Position database holds " + positions.getPositionCount() + " positions from "
+                               + positions.getGamesRecorded() + " games ("
+                               + positions.getDroppedPositions() + " positions dropped)");
+        }
+    }
 
+    /**
+     * Fits evaluation weights to labeled positions and saves them.
+     *
+     * @param file The file of positions, one FEN and result per line.
+     * @param output The file to write the tuned weights to.
+     * @param iterations The number of tuning steps.
+     */
+    private static void runTuner(String file, String output, int iterations) {
+        try {
+            long start = System.nanoTime();
+            eval.TexelTuner tuner = eval.TexelTuner.load(Paths.get(file));
+            if (tuner.size() == 0) {
+                System.out.println("No positions in " + file);
+                return;
+            }
+            System.out.println("Loaded " + tuner.size() + " positions in "
+                               + (System.nanoTime() - start) / 1_000_000 + " ms");
+            eval.EvalParameters tuned = tuner.tune(new eval.EvalParameters(), iterations, System.out);
+            tuned.save(Paths.get(output));
+            System.out.println("Tuned weights written to " + output + " in "
+                               + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (IOException e) {
+            System.out.println("Tuning failed: " + e.getMessage());
+        }
+    }
+}
@@ -1,114 +1,233 @@
 package board;
 
+import java.util.Arrays;
+
+import metrics.Metrics;
+import metrics.MoveEvent;
+import pieces.Attacks;
+import pieces.Color;
 import pieces.Piece;
-import pieces.Rook;
-import pieces.Knight;
-import pieces.Bishop;
-import pieces.Queen;
-import pieces.King;
-import pieces.Pawn;
+import pieces.SlidingAttacks;
+import utils.Square;
 
 /**
- * Represents the chessboard as an 8x8 array of Pieces.
+ * Represents the chessboard as a flat array of 64 Pieces, indexed row * 8 + col.
  * Manages the game state, piece placement, and move validation.
+ *
+ * A board is not thread-safe and must be used by one thread at a time.
+ * Other threads read the position through {@link #getPublishedSnapshot()}.
  */
 public class Board {
-    private Piece[][] board;
-    private String currentPlayer;
+    private final Piece[] board;
+    private Color currentPlayer;
+    private int fullmoveNumber;
+
+    // Bitboards kept in sync with the board array (bit n = square n)
+    private final long[] pieceBitboards;
+    private final long[] occupancy;
+
+    // Zobrist hash of the position, updated incrementally by applyMove
+    private long hash;
+
+    // Special-move state: CASTLE_* bits, file of a pawn that can be taken en passant (-1 if none),
+    // and plies since the last capture or pawn move
+    private int castlingRights;
+    private int enPassantFile;
+    private int halfmoveClock;
+    private Piece lastCaptured;
+    private Piece lastMoved;
+
+    // Hashes of earlier positions in the game (oldest first) and pieces per code, for draw detection
+    private long[] history = new long[128];
+    private int historyCount;
+    private final int[] pieceCounts = new int[Piece.COUNT];
+
+    // Squares of each side's pieces in no particular order; pieceIndex[square] is the
+    // square's position in its side's list, so a piece is added or removed in O(1)
+    private final int[][] pieceSquares = new int[2][64];
+    private final int[] pieceListSize = new int[2];
+    private final int[] pieceIndex = new int[64];
+
+    // Pieces captured by each side, in the order they were taken
+    private final Piece[][] captured = new Piece[2][64];
+    private final int[] capturedCount = new int[2];
+
+    // Created on first display so the frame buffer is reused between calls
+    private ConsoleRenderer renderer;
+
+    private MoveListener[] listeners = new MoveListener[0];
+
+    // Number of pieces of each side attacking each square (side * 64 + square), kept up to
+    // date by putPiece and removePiece
+    private final byte[] attackCounts = new byte[128];
+
+    // Scratch space for staticExchange: the speculative gain after each capture
+    private final int[] exchangeGain = new int[40];
+
+    // Latest immutable copy of the position for readers on other threads; replaced, never modified
+    private volatile BoardSnapshot published;
+    private long snapshotVersion;
+
+    /**
+     * Size of the packed encoding produced by {@link #snapshot()}: 32 bytes
+     * of 4-bit square codes, one byte of side-to-move and castling flags and
+     * one byte for the en-passant file.
+     */
+    public static final int SNAPSHOT_SIZE = 34;
+
+    /** Castling right: white may castle king side. */
+    public static final int CASTLE_WHITE_KINGSIDE = 1;
+    /** Castling right: white may castle queen side. */
+    public static final int CASTLE_WHITE_QUEENSIDE = 2;
+    /** Castling right: black may castle king side. */
+    public static final int CASTLE_BLACK_KINGSIDE = 4;
+    /** Castling right: black may castle queen side. */
+    public static final int CASTLE_BLACK_QUEENSIDE = 8;
+    /** All castling rights. */
+    public static final int CASTLE_ALL = 15;
+
+    /** Squares of the light color (a8 is light, so bit n is set when row + col is even). */
+    private static final long LIGHT_SQUARES = 0x55AA55AA55AA55AAL;
+
+    /** Rights kept when a piece moves from or to each square (cleared on king and rook squares). */
+    private static final int[] CASTLING_MASK = new int[64];
+
+    /** Starting position, copied into the board on every reset. */
+    private static final Piece[] START_POSITION = new Piece[64];
+
+    static {
+        int[] backRank = {Piece.ROOK, Piece.KNIGHT, Piece.BISHOP, Piece.QUEEN,
+                          Piece.KING, Piece.BISHOP, Piece.KNIGHT, Piece.ROOK};
+        for (int col = 0; col < 8; col++) {
+            // Black pieces on ranks 8 and 7 (rows 0 and 1)
+            START_POSITION[col] = Piece.of(Color.BLACK, backRank[col]);
+            START_POSITION[8 + col] = Piece.of(Color.BLACK, Piece.PAWN);
+            // White pieces on ranks 2 and 1 (rows 6 and 7)
+            START_POSITION[48 + col] = Piece.of(Color.WHITE, Piece.PAWN);
+            START_POSITION[56 + col] = Piece.of(Color.WHITE, backRank[col]);
+        }
+
+        Arrays.fill(CASTLING_MASK, CASTLE_ALL);
+        CASTLING_MASK[0] &= ~CASTLE_BLACK_QUEENSIDE;
+        CASTLING_MASK[4] &= ~(CASTLE_BLACK_KINGSIDE | CASTLE_BLACK_QUEENSIDE);
+        CASTLING_MASK[7] &= ~CASTLE_BLACK_KINGSIDE;
+        CASTLING_MASK[56] &= ~CASTLE_WHITE_QUEENSIDE;
+        CASTLING_MASK[60] &= ~(CASTLE_WHITE_KINGSIDE | CASTLE_WHITE_QUEENSIDE);
+        CASTLING_MASK[63] &= ~CASTLE_WHITE_KINGSIDE;
+    }
 
     /**
      * Constructs a new chess board and initializes it with pieces in starting positions.
      */
     public Board() {
-        board = new Piece[8][8];
-        currentPlayer = "white"; // Start with white player
+        board = new Piece[64];
+        pieceBitboards = new long[Piece.COUNT];
+        occupancy = new long[2];
+        currentPlayer = Color.WHITE; // Start with white player
+        fullmoveNumber = 1;
         initializeBoard();
     }
 
+    /**
+     * Constructs a copy of another board.
+     * Pieces are shared flyweights, so the copy is a flat array copy.
+     *
+     * @param other The board to copy.
+     */
+    public Board(Board other) {
+        board = other.board.clone();
+        pieceBitboards = other.pieceBitboards.clone();
+        occupancy = other.occupancy.clone();
+        currentPlayer = other.currentPlayer;
+        fullmoveNumber = other.fullmoveNumber;
+        hash = other.hash;
+        castlingRights = other.castlingRights;
+        enPassantFile = other.enPassantFile;
+        halfmoveClock = other.halfmoveClock;
+        history = other.history.clone();
+        historyCount = other.historyCount;
+        System.arraycopy(other.pieceCounts, 0, pieceCounts, 0, Piece.COUNT);
+        for (int side = 0; side < 2; side++) {
+            System.arraycopy(other.pieceSquares[side], 0, pieceSquares[side], 0, other.pieceListSize[side]);
+            System.arraycopy(other.captured[side], 0, captured[side], 0, other.capturedCount[side]);
+        }
+        System.arraycopy(other.pieceListSize, 0, pieceListSize, 0, 2);
+        System.arraycopy(other.pieceIndex, 0, pieceIndex, 0, 64);
+        System.arraycopy(other.capturedCount, 0, capturedCount, 0, 2);
+        System.arraycopy(other.attackCounts, 0, attackCounts, 0, attackCounts.length);
+        // Snapshots are immutable, so the copy starts out sharing the original's
+        published = other.published;
+        snapshotVersion = other.snapshotVersion;
+    }
+
     /**
      * Initializes the board with pieces in their starting positions.
      */
     public void initializeBoard() {
-        // Clear the board first
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                board[row][col] = null;
-            }
-        }
+        System.arraycopy(START_POSITION, 0, board, 0, 64);
+        castlingRights = CASTLE_ALL;
+        enPassantFile = -1;
+        halfmoveClock = 0;
+        historyCount = 0;
+        clearCaptures();
+        rebuildBitboards();
+        publish(-1L);
+    }
 
-        // Place black pieces (top of board, ranks 7-8)
-        // Black major pieces on rank 8 (row 0)
-        board[0][0] = new Rook("black", 0, 0);
-        board[0][1] = new Knight("black", 0, 1);
-        board[0][2] = new Bishop("black", 0, 2);
-        board[0][3] = new Queen("black", 0, 3);
-        board[0][4] = new King("black", 0, 4);
-        board[0][5] = new Bishop("black", 0, 5);
-        board[0][6] = new Knight("black", 0, 6);
-        board[0][7] = new Rook("black", 0, 7);
+    /**
+     * Forgets the pieces captured so far.
+     */
+    private void clearCaptures() {
+        capturedCount[0] = 0;
+        capturedCount[1] = 0;
+        Arrays.fill(captured[0], null);
+        Arrays.fill(captured[1], null);
+        lastCaptured = null;
+        lastMoved = null;
+    }
 
-        // Black pawns on rank 7 (row 1)
-        for (int col = 0; col < 8; col++) {
-            board[1][col] = new Pawn("black", 1, col);
+    /**
+     * Recomputes the piece and occupancy bitboards, piece lists, counts,
+     * attack counts and the hash from the board array.
+     */
+    private void rebuildBitboards() {
+        Arrays.fill(pieceBitboards, 0L);
+        Arrays.fill(pieceCounts, 0);
+        pieceListSize[0] = 0;
+        pieceListSize[1] = 0;
+        occupancy[0] = 0L;
+        occupancy[1] = 0L;
+        hash = (currentPlayer == Color.BLACK ? Zobrist.BLACK_TO_MOVE : 0L)
+                ^ Zobrist.castling(castlingRights) ^ Zobrist.enPassant(enPassantFile);
+        for (int square = 0; square < 64; square++) {
+            Piece piece = board[square];
+            if (piece != null) {
+                pieceBitboards[piece.getCode()] |= 1L << square;
+                occupancy[piece.getSide().ordinal()] |= 1L << square;
+                hash ^= Zobrist.piece(piece.getCode(), square);
+                pieceCounts[piece.getCode()]++;
+                int side = piece.getSide().ordinal();
+                pieceIndex[square] = pieceListSize[side];
+                pieceSquares[side][pieceListSize[side]++] = square;
+            }
         }
 
-        // Place white pieces (bottom of board, ranks 1-2)
-        // White pawns on rank 2 (row 6)
-        for (int col = 0; col < 8; col++) {
-            board[6][col] = new Pawn("white", 6, col);
+        Arrays.fill(attackCounts, (byte) 0);
+        long occupied = occupancy[0] | occupancy[1];
+        for (long pieces = occupied; pieces != 0; pieces &= pieces - 1) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            addAttacks(board[square].getSide().ordinal(), attacks(board[square], square, occupied), 1);
         }
-
-        // White major pieces on rank 1 (row 7)
-        board[7][0] = new Rook("white", 7, 0);
-        board[7][1] = new Knight("white", 7, 1);
-        board[7][2] = new Bishop("white", 7, 2);
-        board[7][3] = new Queen("white", 7, 3);
-        board[7][4] = new King("white", 7, 4);
-        board[7][5] = new Bishop("white", 7, 5);
-        board[7][6] = new Knight("white", 7, 6);
-        board[7][7] = new Rook("white", 7, 7);
     }
 
     /**
      * Displays the current board state in the console.
      */
     public void display() {
-        System.out.println("\n=== CHESS BOARD ===");
-        System.out.println("Current player: " + currentPlayer.toUpperCase());
-        System.out.println();
-        
-        // Top coordinate labels
-        System.out.println("    A   B   C   D   E   F   G   H");
-        System.out.println("  +---+---+---+---+---+---+---+---+");
-        
-        for (int row = 0; row < 8; row++) {
-            // Left rank number
-            System.out.print((8 - row) + " |");
-            
-            for (int col = 0; col < 8; col++) {
-                if (board[row][col] == null) {
-                    System.out.print("   ");
-                } else {
-                    // Display piece according to specification: wP, bR, etc.
-                    String color = board[row][col].getColor();
-                    String pieceType = board[row][col].getClass().getSimpleName();
-                    
-                    char colorChar = color.charAt(0); // 'w' or 'b'
-                    char pieceChar = pieceType.charAt(0); // 'P', 'R', 'N', etc.
-                    
-                    System.out.print(" " + colorChar + pieceChar);
-                }
-                System.out.print("|");
-            }
-            
-            // Right rank number
-            System.out.println(" " + (8 - row));
-            System.out.println("  +---+---+---+---+---+---+---+---+");
+        if (renderer == null) {
+            renderer = new ConsoleRenderer(System.out, false);
         }
-        
-        // Bottom coordinate labels
-        System.out.println("    A   B   C   D   E   F   G   H");
-        System.out.println();
+        renderer.render(this);
     }
 
     /**
@@ -123,16 +242,27 @@ public class Board {
         if (row < 0 || row >= 8 || col < 0 || col >= 8) {
             throw new IndexOutOfBoundsException("Invalid board position: (" + row + ", " + col + ")");
         }
-        return board[row][col];
+        return board[row * 8 + col];
+    }
+
+    /**
+     * Gets the piece on a square.
+     *
+     * @param square The square (row * 8 + col).
+     * @return The piece on the square, or null if empty.
+     * @throws IndexOutOfBoundsException if the square is not 0-63.
+     */
+    public Piece getPiece(int square) {
+        return board[square];
     }
 
     /**
-     * Gets the current board state as a 2D array.
+     * Gets the current board state as a flat array indexed row * 8 + col.
      * Used by Player class to update available pieces.
      *
-     * @return The 2D array representing the board.
+     * @return The array representing the board.
      */
-    public Piece[][] getBoard() {
+    public Piece[] getBoard() {
         return board;
     }
 
@@ -152,79 +282,1019 @@ public class Board {
             return false;
         }
 
-        Piece piece = board[fromRow][fromCol];
+        return movePiece(Move.of(fromRow * 8 + fromCol, toRow * 8 + toCol));
+    }
+
+    /**
+     * Applies a packed move if it is valid, printing the outcome to the console.
+     *
+     * @param move The packed move (see {@link Move}).
+     * @return true if the move was successful, false otherwise.
+     */
+    public boolean movePiece(int move) {
+        Piece piece = board[Move.from(move)];
+
+        switch (applyMove(move)) {
+            case OK:
+                // Capture notification
+                Piece destinationPiece = lastCaptured;
+                if (destinationPiece != null) {
+                    System.out.println(piece.getColor() + " captures " + 
+                                     destinationPiece.getColor() + " " + 
+                                     destinationPiece.getClass().getSimpleName());
+                }
+                Piece arrived = board[Move.to(move)];
+                if (arrived != piece) {
+                    System.out.println(piece.getColor() + " Pawn promotes to "
+                                       + arrived.getClass().getSimpleName());
+                }
+                return true;
+            case NO_PIECE:
+                System.out.println("No piece at the specified position.");
+                return false;
+            case WRONG_TURN:
+                System.out.println("It's " + currentPlayer + "'s turn.");
+                return false;
+            case OWN_PIECE:
+                System.out.println("Cannot capture your own piece.");
+                return false;
+            default:
+                System.out.println("Invalid move for " + piece.getClass().getSimpleName());
+                return false;
+        }
+    }
+
+    /**
+     * Applies a packed move if it is valid, without printing anything.
+     * Used by the console and GUI through movePiece, and directly by batch processing.
+     *
+     * @param move The packed move (see {@link Move}).
+     * @return OK if the move was applied, otherwise the reason it was rejected.
+     */
+    public MoveResult applyMove(int move) {
+        MoveEvent event = new MoveEvent();
+        event.begin();
+        Piece piece = board[Move.from(move)];
+        long start = Metrics.ENABLED ? System.nanoTime() : 0L;
+
+        MoveResult result = execute(move);
+
+        if (Metrics.ENABLED) {
+            Metrics.recordMove(result, System.nanoTime() - start);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.move = Move.toUci(move);
+            event.result = result.name();
+            event.piece = piece == null ? null : piece.toString();
+            event.captured = result == MoveResult.OK && lastCaptured != null ? lastCaptured.toString() : null;
+            event.commit();
+        }
+        return result;
+    }
+
+    /**
+     * Validates and applies a move, notifying listeners on success.
+     */
+    private MoveResult execute(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        Piece piece = board[from];
         if (piece == null) {
-            System.out.println("No piece at the specified position.");
-            return false;
+            return MoveResult.NO_PIECE;
         }
 
         // Check if it's the correct player's turn
-        if (!piece.getColor().equals(currentPlayer)) {
-            System.out.println("It's " + currentPlayer + "'s turn.");
-            return false;
+        if (piece.getSide() != currentPlayer) {
+            return MoveResult.WRONG_TURN;
         }
 
         // Check if the destination has a piece of the same color
-        Piece destinationPiece = board[toRow][toCol];
-        if (destinationPiece != null && destinationPiece.getColor().equals(piece.getColor())) {
-            System.out.println("Cannot capture your own piece.");
-            return false;
+        Piece destinationPiece = board[to];
+        if (destinationPiece != null && destinationPiece.getSide() == piece.getSide()) {
+            return MoveResult.OWN_PIECE;
         }
 
         // Check if the move is valid according to piece movement rules
-        for (int[] move : piece.possibleMoves(board)) {
-            if (move[0] == toRow && move[1] == toCol) {
-                // Capture notification
-                if (destinationPiece != null) {
-                    System.out.println(currentPlayer + " captures " + 
-                                     destinationPiece.getColor() + " " + 
-                                     destinationPiece.getClass().getSimpleName());
+        if ((getMoveTargets(from) & (1L << to)) == 0) {
+            return MoveResult.ILLEGAL;
+        }
+
+        // A promotion piece is required to be a knight to queen, and only on the last rank
+        int type = piece.getType();
+        boolean promoting = type == Piece.PAWN && (to >> 3) == (currentPlayer == Color.WHITE ? 0 : 7);
+        int promotion = Move.promotion(move);
+        if (promoting ? promotion > Piece.QUEEN : promotion != 0) {
+            return MoveResult.ILLEGAL;
+        }
+
+        // Execute the move
+        if (historyCount == history.length) {
+            history = Arrays.copyOf(history, historyCount * 2);
+        }
+        history[historyCount++] = hash;
+        int previousEnPassant = enPassantFile;
+        int previousRights = castlingRights;
+        long changed = (1L << from) | (1L << to);
+        halfmoveClock++;
+        enPassantFile = -1;
+
+        if (destinationPiece != null) {
+            removePiece(to);
+            halfmoveClock = 0;
+        } else if (type == Piece.PAWN && (from & 7) != (to & 7)) {
+            // En passant: the captured pawn stands behind the destination square
+            int capturedSquare = to + (currentPlayer == Color.WHITE ? 8 : -8);
+            destinationPiece = board[capturedSquare];
+            removePiece(capturedSquare);
+            changed |= 1L << capturedSquare;
+        }
+        lastCaptured = destinationPiece;
+        lastMoved = piece;
+        if (destinationPiece != null) {
+            captured[currentPlayer.ordinal()][capturedCount[currentPlayer.ordinal()]++] = destinationPiece;
+        }
+
+        removePiece(from);
+        putPiece(promoting ? Piece.of(currentPlayer, promotion == 0 ? Piece.QUEEN : promotion) : piece, to);
+
+        if (type == Piece.PAWN) {
+            halfmoveClock = 0;
+            if (Math.abs(to - from) == 16) {
+                // Only record the file if an enemy pawn can actually take en passant
+                int passed = (from + to) >> 1;
+                if ((Attacks.pawn(currentPlayer, passed)
+                        & pieceBitboards[Piece.of(currentPlayer.opposite(), Piece.PAWN).getCode()]) != 0) {
+                    enPassantFile = to & 7;
                 }
-                
-                // Execute the move
-                board[toRow][toCol] = piece;
-                board[fromRow][fromCol] = null;
-                piece.setPosition(toRow, toCol);
-                
-                // Switch turns
-                currentPlayer = currentPlayer.equals("white") ? "black" : "white";
-                
-                return true;
+            }
+        } else if (type == Piece.KING && Math.abs(to - from) == 2) {
+            // Castling: move the rook over the king
+            boolean kingSide = to > from;
+            int rookFrom = kingSide ? from + 3 : from - 4;
+            int rookTo = kingSide ? from + 1 : from - 1;
+            Piece rook = board[rookFrom];
+            removePiece(rookFrom);
+            putPiece(rook, rookTo);
+            changed |= (1L << rookFrom) | (1L << rookTo);
+        }
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        hash ^= Zobrist.enPassant(previousEnPassant) ^ Zobrist.enPassant(enPassantFile)
+                ^ Zobrist.castling(previousRights) ^ Zobrist.castling(castlingRights)
+                ^ Zobrist.BLACK_TO_MOVE;
+
+        // Switch turns
+        if (currentPlayer == Color.BLACK) {
+            fullmoveNumber++;
+        }
+        currentPlayer = currentPlayer.opposite();
+        publish(changed);
+
+        for (MoveListener listener : listeners) {
+            listener.moveApplied(move);
+        }
+        return MoveResult.OK;
+    }
+
+    /**
+     * Places a piece on an empty square, updating the bitboards, piece list,
+     * attack counts and hash.
+     */
+    private void putPiece(Piece piece, int square) {
+        long occupied = occupancy[0] | occupancy[1];
+        updateRaysThrough(square, occupied, occupied | (1L << square));
+        addAttacks(piece.getSide().ordinal(), attacks(piece, square, occupied | (1L << square)), 1);
+
+        int side = piece.getSide().ordinal();
+        pieceIndex[square] = pieceListSize[side];
+        pieceSquares[side][pieceListSize[side]++] = square;
+        board[square] = piece;
+        pieceBitboards[piece.getCode()] |= 1L << square;
+        occupancy[piece.getSide().ordinal()] |= 1L << square;
+        hash ^= Zobrist.piece(piece.getCode(), square);
+        pieceCounts[piece.getCode()]++;
+    }
+
+    /**
+     * Removes the piece from an occupied square, updating the bitboards, piece list,
+     * attack counts and hash.
+     */
+    private void removePiece(int square) {
+        Piece piece = board[square];
+        long occupied = occupancy[0] | occupancy[1];
+        addAttacks(piece.getSide().ordinal(), attacks(piece, square, occupied), -1);
+        updateRaysThrough(square, occupied, occupied & ~(1L << square));
+
+        // Move the last square of the list into the freed slot
+        int side = piece.getSide().ordinal();
+        int last = pieceSquares[side][--pieceListSize[side]];
+        pieceSquares[side][pieceIndex[square]] = last;
+        pieceIndex[last] = pieceIndex[square];
+        board[square] = null;
+        pieceBitboards[piece.getCode()] &= ~(1L << square);
+        occupancy[piece.getSide().ordinal()] &= ~(1L << square);
+        hash ^= Zobrist.piece(piece.getCode(), square);
+        pieceCounts[piece.getCode()]--;
+    }
+
+    /**
+     * Gets the squares a piece attacks.
+     */
+    private static long attacks(Piece piece, int square, long occupied) {
+        switch (piece.getType()) {
+            case Piece.PAWN:
+                return Attacks.pawn(piece.getSide(), square);
+            case Piece.KNIGHT:
+                return Attacks.knight(square);
+            case Piece.BISHOP:
+                return SlidingAttacks.bishop(square, occupied);
+            case Piece.ROOK:
+                return SlidingAttacks.rook(square, occupied);
+            case Piece.QUEEN:
+                return SlidingAttacks.queen(square, occupied);
+            default:
+                return Attacks.king(square);
+        }
+    }
+
+    /**
+     * Adds delta to one side's attack count on each of the given squares.
+     */
+    private void addAttacks(int side, long squares, int delta) {
+        int base = side * 64;
+        for (; squares != 0; squares &= squares - 1) {
+            attackCounts[base + Long.numberOfTrailingZeros(squares)] += delta;
+        }
+    }
+
+    /**
+     * Updates the attack counts of sliding pieces whose rays pass through a
+     * square that is being filled or emptied: the squares behind it along
+     * each such ray are blocked or opened. No other piece's attacks change.
+     *
+     * @param square The square whose occupancy changes.
+     * @param before The occupancy before the change.
+     * @param after The occupancy after the change.
+     */
+    private void updateRaysThrough(int square, long before, long after) {
+        long diagonal = pieceBitboards[Piece.BISHOP] | pieceBitboards[6 + Piece.BISHOP]
+                | pieceBitboards[Piece.QUEEN] | pieceBitboards[6 + Piece.QUEEN];
+        long straight = pieceBitboards[Piece.ROOK] | pieceBitboards[6 + Piece.ROOK]
+                | pieceBitboards[Piece.QUEEN] | pieceBitboards[6 + Piece.QUEEN];
+        int delta = (after & (1L << square)) != 0 ? -1 : 1;
+        for (long sliders = SlidingAttacks.bishop(square, before) & diagonal; sliders != 0; sliders &= sliders - 1) {
+            int from = Long.numberOfTrailingZeros(sliders);
+            long changed = SlidingAttacks.bishop(from, before) ^ SlidingAttacks.bishop(from, after);
+            addAttacks(board[from].getSide().ordinal(), changed, delta);
+        }
+        for (long sliders = SlidingAttacks.rook(square, before) & straight; sliders != 0; sliders &= sliders - 1) {
+            int from = Long.numberOfTrailingZeros(sliders);
+            long changed = SlidingAttacks.rook(from, before) ^ SlidingAttacks.rook(from, after);
+            addAttacks(board[from].getSide().ordinal(), changed, delta);
+        }
+    }
+
+    /**
+     * Gets every square the piece on a square can move to, including castling
+     * and en passant. Moves that leave the own king attacked are included; as
+     * in the rest of the game, the king is lost by being captured.
+     *
+     * @param square The square of the piece (row * 8 + col).
+     * @return A bitmask of target squares, or 0 if the square is empty.
+     */
+    public long getMoveTargets(int square) {
+        if (!Metrics.ENABLED) {
+            return moveTargets(square);
+        }
+        long start = System.nanoTime();
+        long targets = moveTargets(square);
+        Metrics.MOVE_GENERATION.record(System.nanoTime() - start);
+        return targets;
+    }
+
+    private long moveTargets(int square) {
+        Piece piece = board[square];
+        if (piece == null) {
+            return 0L;
+        }
+        Color side = piece.getSide();
+        long own = occupancy[side.ordinal()];
+        long targets = piece.moveTargets(square, own, own | occupancy[side.opposite().ordinal()]);
+
+        switch (piece.getType()) {
+            case Piece.PAWN:
+                if (enPassantFile >= 0 && side == currentPlayer) {
+                    int target = (side == Color.WHITE ? 16 : 40) + enPassantFile;
+                    targets |= Attacks.pawn(side, square) & (1L << target);
+                }
+                break;
+            case Piece.KING:
+                targets |= castlingTargets(side);
+                break;
+            default:
+                break;
+        }
+        return targets;
+    }
+
+    /**
+     * Gets the squares the king of a side can castle to: the side still has
+     * the right, the squares between king and rook are empty, and the king is
+     * not in check and does not pass through or land on an attacked square.
+     */
+    private long castlingTargets(Color side) {
+        int rights = (castlingRights >> (2 * side.ordinal())) & 3;
+        int king = side == Color.WHITE ? 60 : 4;
+        Color enemy = side.opposite();
+        if (rights == 0 || isSquareAttacked(king, enemy)) {
+            return 0L;
+        }
+        long occupied = occupancy[0] | occupancy[1];
+        long targets = 0L;
+        if ((rights & 1) != 0 && (occupied & (3L << (king + 1))) == 0
+                && !isSquareAttacked(king + 1, enemy) && !isSquareAttacked(king + 2, enemy)) {
+            targets |= 1L << (king + 2);
+        }
+        if ((rights & 2) != 0 && (occupied & (7L << (king - 3))) == 0
+                && !isSquareAttacked(king - 1, enemy) && !isSquareAttacked(king - 2, enemy)) {
+            targets |= 1L << (king - 2);
+        }
+        return targets;
+    }
+
+    /**
+     * Registers a listener to be notified of applied moves and resets.
+     *
+     * @param listener The listener to add.
+     */
+    public void addMoveListener(MoveListener listener) {
+        MoveListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+    }
+
+    /**
+     * Removes a previously registered listener.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeMoveListener(MoveListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                MoveListener[] updated = new MoveListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, updated, 0, i);
+                System.arraycopy(listeners, i + 1, updated, i, listeners.length - i - 1);
+                listeners = updated;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Checks if a square is attacked by any piece of the given color.
+     * Reads the attack counts the board maintains as pieces move, so the
+     * query is a single array lookup.
+     *
+     * @param square The square to check (row * 8 + col).
+     * @param byColor The attacking side.
+     * @return true if at least one piece of byColor attacks the square.
+     */
+    public boolean isSquareAttacked(int square, Color byColor) {
+        return attackCounts[byColor.ordinal() * 64 + square] != 0;
+    }
+
+    /**
+     * Gets the number of pieces of a color attacking a square.
+     *
+     * @param square The square (row * 8 + col).
+     * @param byColor The attacking side.
+     * @return The number of attackers.
+     */
+    public int getAttackCount(int square, Color byColor) {
+        return attackCounts[byColor.ordinal() * 64 + square];
+    }
+
+    /**
+     * Gets the squares of the pieces of a color attacking a square.
+     * Knight, king and pawn attackers come from the precomputed tables in
+     * {@link Attacks} and sliding ones from {@link SlidingAttacks}, so the
+     * query is a handful of table lookups and masks.
+     *
+     * @param square The square (row * 8 + col).
+     * @param byColor The attacking side.
+     * @return A bitmask of the attackers' squares.
+     */
+    public long attackersOf(int square, Color byColor) {
+        if (attackCounts[byColor.ordinal() * 64 + square] == 0) {
+            return 0L;
+        }
+        return attackersTo(square, occupancy[0] | occupancy[1]) & occupancy[byColor.ordinal()];
+    }
+
+    /**
+     * Checks if a side's king is attacked.
+     *
+     * @param color The side whose king to check.
+     * @return true if the king is attacked, false if it is safe or has been captured.
+     */
+    public boolean isInCheck(Color color) {
+        long king = pieceBitboards[Piece.of(color, Piece.KING).getCode()];
+        return king != 0
+                && attackCounts[(color.ordinal() ^ 1) * 64 + Long.numberOfTrailingZeros(king)] != 0;
+    }
+
+    /**
+     * Gets the pieces of both sides that attack a square.
+     *
+     * @param square The square (row * 8 + col).
+     * @param occupied The occupancy to use for sliding pieces.
+     * @return A bitmask of the attacking pieces' squares.
+     */
+    private long attackersTo(int square, long occupied) {
+        long rooks = pieceBitboards[Piece.ROOK] | pieceBitboards[6 + Piece.ROOK]
+                | pieceBitboards[Piece.QUEEN] | pieceBitboards[6 + Piece.QUEEN];
+        long bishops = pieceBitboards[Piece.BISHOP] | pieceBitboards[6 + Piece.BISHOP]
+                | pieceBitboards[Piece.QUEEN] | pieceBitboards[6 + Piece.QUEEN];
+        return (Attacks.knight(square) & (pieceBitboards[Piece.KNIGHT] | pieceBitboards[6 + Piece.KNIGHT]))
+                | (Attacks.king(square) & (pieceBitboards[Piece.KING] | pieceBitboards[6 + Piece.KING]))
+                | (Attacks.pawn(Color.BLACK, square) & pieceBitboards[Piece.PAWN])
+                | (Attacks.pawn(Color.WHITE, square) & pieceBitboards[6 + Piece.PAWN])
+                | (SlidingAttacks.rook(square, occupied) & rooks)
+                | (SlidingAttacks.bishop(square, occupied) & bishops);
+    }
+
+    /**
+     * Computes the material outcome of moving a piece to a square when both
+     * sides then keep capturing on that square, each with its least valuable
+     * attacker and each free to stop when continuing would lose material.
+     * Pieces lined up behind an attacker (a rook behind a queen, a bishop
+     * behind a pawn) join in once the piece in front has captured. Nothing
+     * is moved on the board and nothing is allocated.
+     *
+     * Pins, en passant and promotions are not considered, so the result is
+     * an estimate for ordering and pruning captures, not a search.
+     *
+     * @param from The square of the piece making the first capture.
+     * @param to The square it moves to; if empty, the result shows whether the piece can be won there.
+     * @return The material gained by the moving side in centipawns (negative if it loses material),
+     *         or 0 if there is no piece on from.
+     */
+    public int staticExchange(int from, int to) {
+        Piece mover = board[from];
+        if (mover == null) {
+            return 0;
+        }
+        int[] gain = exchangeGain;
+        Piece target = board[to];
+        gain[0] = target == null ? 0 : target.getValue();
+
+        long occupied = occupancy[0] | occupancy[1];
+        long attackers = attackersTo(to, occupied);
+        long diagonalSliders = pieceBitboards[Piece.BISHOP] | pieceBitboards[6 + Piece.BISHOP]
+                | pieceBitboards[Piece.QUEEN] | pieceBitboards[6 + Piece.QUEEN];
+        long straightSliders = pieceBitboards[Piece.ROOK] | pieceBitboards[6 + Piece.ROOK]
+                | pieceBitboards[Piece.QUEEN] | pieceBitboards[6 + Piece.QUEEN];
+        long fromBit = 1L << from;
+        int side = mover.getSide().ordinal();
+        int capturingValue = mover.getValue();
+        int depth = 0;
+
+        while (true) {
+            depth++;
+            // What the side to recapture would gain, if it can
+            gain[depth] = capturingValue - gain[depth - 1];
+            occupied ^= fromBit;
+            // Sliders behind the piece that just captured now see the square
+            attackers |= (SlidingAttacks.bishop(to, occupied) & diagonalSliders)
+                    | (SlidingAttacks.rook(to, occupied) & straightSliders);
+            attackers &= occupied;
+
+            side ^= 1;
+            fromBit = 0L;
+            for (int type = Piece.PAWN; type <= Piece.KING; type++) {
+                long candidates = attackers & pieceBitboards[side * 6 + type];
+                if (candidates != 0) {
+                    fromBit = candidates & -candidates;
+                    capturingValue = Piece.value(type);
+                    break;
+                }
+            }
+            if (fromBit == 0L) {
+                break;
+            }
+        }
+        while (--depth > 0) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+        }
+        return gain[0];
+    }
+
+    /**
+     * Checks whether a piece can be won: the opponent's cheapest capture of
+     * it gains material by {@link #staticExchange(int, int)}.
+     *
+     * @param square The square of the piece (row * 8 + col).
+     * @return true if the piece is hanging, false if it is safe or the square is empty.
+     */
+    public boolean isHanging(int square) {
+        Piece piece = board[square];
+        if (piece == null) {
+            return false;
+        }
+        int enemy = piece.getSide().ordinal() ^ 1;
+        long attackers = attackersTo(square, occupancy[0] | occupancy[1]) & occupancy[enemy];
+        for (int type = Piece.PAWN; type <= Piece.KING; type++) {
+            long candidates = attackers & pieceBitboards[enemy * 6 + type];
+            if (candidates != 0) {
+                return staticExchange(Long.numberOfTrailingZeros(candidates), square) > 0;
             }
         }
-        
-        System.out.println("Invalid move for " + piece.getClass().getSimpleName());
         return false;
     }
 
+    /**
+     * Gets the bitboard of squares holding the given piece.
+     *
+     * @param piece The piece to look up.
+     * @return A bitmask with bit (row * 8 + col) set for each square holding the piece.
+     */
+    public long getPieceBitboard(Piece piece) {
+        return pieceBitboards[piece.getCode()];
+    }
+
+    /**
+     * Gets the bitboard of squares occupied by the given side.
+     *
+     * @param color The side to look up.
+     * @return A bitmask with bit (row * 8 + col) set for each occupied square.
+     */
+    public long getOccupancy(Color color) {
+        return occupancy[color.ordinal()];
+    }
+
+    /**
+     * Gets the Zobrist hash of the position (pieces and side to move).
+     * Equal positions have equal hashes, and the hash is maintained
+     * incrementally, so reading it is free.
+     *
+     * @return The 64-bit position hash.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Gets the latest published snapshot of the position.
+     * Unlike every other method of this class, this one may be called from
+     * any thread: the board replaces the snapshot after each move, reset,
+     * restore or change of side to move, and a snapshot never changes once
+     * published. A reader on another thread sees either the position before
+     * or after a move, never a half-applied one.
+     *
+     * @return The current snapshot.
+     */
+    public BoardSnapshot getPublishedSnapshot() {
+        return published;
+    }
+
+    /**
+     * Replaces the published snapshot with a copy of the current position.
+     * The previous snapshot's squares are copied and only the changed ones
+     * are re-read from the board.
+     *
+     * @param changed Bitmask of the squares that changed since the last snapshot.
+     */
+    private void publish(long changed) {
+        BoardSnapshot previous = published;
+        byte[] squares;
+        if (previous == null) {
+            squares = new byte[64];
+            changed = -1L;
+        } else {
+            squares = previous.copySquares();
+        }
+        for (; changed != 0; changed &= changed - 1) {
+            int square = Long.numberOfTrailingZeros(changed);
+            squares[square] = (byte) nibble(board[square]);
+        }
+        published = new BoardSnapshot(squares, currentPlayer, castlingRights, enPassantFile,
+                halfmoveClock, fullmoveNumber, hash, ++snapshotVersion);
+    }
+
+    /**
+     * Packs the position into a new {@link #SNAPSHOT_SIZE}-byte array.
+     *
+     * @return The packed position.
+     * @see #snapshot(byte[], int)
+     */
+    public byte[] snapshot() {
+        byte[] data = new byte[SNAPSHOT_SIZE];
+        snapshot(data, 0);
+        return data;
+    }
+
+    /**
+     * Packs the position into an existing array.
+     * Bytes 0-31 hold two squares each (square 2n in the low nibble, 2n+1 in
+     * the high nibble) as 0 for empty or piece code + 1. Byte 32 holds the side
+     * to move in bit 0 (set for black) and castling rights in bits 1-4; byte 33
+     * holds the en-passant file + 1, or 0 if there is none. Move counters are
+     * not part of the position, so equal positions always pack to equal bytes.
+     *
+     * @param data The array to write to.
+     * @param offset The index of the first byte to write.
+     */
+    public void snapshot(byte[] data, int offset) {
+        for (int square = 0; square < 64; square += 2) {
+            data[offset + (square >> 1)] = (byte) (nibble(board[square]) | (nibble(board[square + 1]) << 4));
+        }
+        data[offset + 32] = (byte) ((currentPlayer == Color.BLACK ? 1 : 0) | (castlingRights << 1));
+        data[offset + 33] = (byte) (enPassantFile + 1);
+    }
+
+    /**
+     * Rebuilds the board from a packed position created by {@link #snapshot()}.
+     *
+     * @param data The packed position.
+     * @throws IllegalArgumentException if the data is too short or malformed.
+     */
+    public void restore(byte[] data) {
+        restore(data, 0);
+    }
+
+    /**
+     * Rebuilds the board from a packed position, without allocating.
+     * The full move number restarts at 1 and the halfmove clock at 0. Castling
+     * rights whose king or rook is not on its starting square are dropped, and
+     * so is an en-passant file where no double pawn push can have happened or
+     * no pawn can capture. Move listeners are not notified.
+     *
+     * @param data The array holding the packed position.
+     * @param offset The index of the first byte of the position.
+     * @throws IllegalArgumentException if the data is too short or malformed.
+     */
+    public void restore(byte[] data, int offset) {
+        if (offset < 0 || data.length - offset < SNAPSHOT_SIZE) {
+            throw new IllegalArgumentException("Snapshot needs " + SNAPSHOT_SIZE + " bytes");
+        }
+        // Validate before touching the board so a bad snapshot leaves it unchanged
+        for (int i = 0; i < 32; i++) {
+            int packed = data[offset + i] & 0xFF;
+            if ((packed & 0x0F) > Piece.COUNT || (packed >>> 4) > Piece.COUNT) {
+                throw new IllegalArgumentException("Invalid square code in snapshot byte " + i);
+            }
+        }
+        if ((data[offset + 32] & 0xE0) != 0 || (data[offset + 33] & 0xFF) > 8) {
+            throw new IllegalArgumentException("Invalid flags in snapshot");
+        }
+
+        for (int square = 0; square < 64; square += 2) {
+            int packed = data[offset + (square >> 1)] & 0xFF;
+            board[square] = fromNibble(packed & 0x0F);
+            board[square + 1] = fromNibble(packed >>> 4);
+        }
+        currentPlayer = (data[offset + 32] & 1) != 0 ? Color.BLACK : Color.WHITE;
+        castlingRights = consistentRights((data[offset + 32] >> 1) & CASTLE_ALL);
+        enPassantFile = consistentEnPassant((data[offset + 33] & 0xFF) - 1);
+        fullmoveNumber = 1;
+        halfmoveClock = 0;
+        historyCount = 0;
+        clearCaptures();
+        rebuildBitboards();
+        publish(-1L);
+    }
+
+    /**
+     * Drops castling rights whose king or rook is not on its starting square.
+     */
+    private int consistentRights(int rights) {
+        int[] rookSquares = {63, 56, 7, 0};
+        for (int i = 0; i < 4; i++) {
+            Color side = i < 2 ? Color.WHITE : Color.BLACK;
+            if (board[side == Color.WHITE ? 60 : 4] != Piece.of(side, Piece.KING)
+                    || board[rookSquares[i]] != Piece.of(side, Piece.ROOK)) {
+                rights &= ~(1 << i);
+            }
+        }
+        return rights;
+    }
+
+    /**
+     * Drops an en-passant file unless the enemy pawn that just moved two
+     * squares stands behind an empty target and passed square, and a pawn of
+     * the side to move can capture it.
+     */
+    private int consistentEnPassant(int file) {
+        if (file < 0) {
+            return -1;
+        }
+        Color enemy = currentPlayer.opposite();
+        int target = (currentPlayer == Color.WHITE ? 16 : 40) + file;
+        int step = currentPlayer == Color.WHITE ? 8 : -8;
+        if (board[target] != null || board[target - step] != null
+                || board[target + step] != Piece.of(enemy, Piece.PAWN)) {
+            return -1;
+        }
+        for (long capturers = Attacks.pawn(enemy, target); capturers != 0; capturers &= capturers - 1) {
+            if (board[Long.numberOfTrailingZeros(capturers)] == Piece.of(currentPlayer, Piece.PAWN)) {
+                return file;
+            }
+        }
+        return -1;
+    }
+
+    private static int nibble(Piece piece) {
+        return piece == null ? 0 : piece.getCode() + 1;
+    }
+
+    private static Piece fromNibble(int nibble) {
+        return nibble == 0 ? null : Piece.fromCode(nibble - 1);
+    }
+
+    /**
+     * Gets the full move number: 1 at the start, increased after each black move.
+     *
+     * @return The full move number.
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * Gets the number of plies since the last capture or pawn move, used by the fifty-move rule.
+     *
+     * @return The halfmove clock.
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * Counts how often the current position has occurred in this game,
+     * including now. Only positions since the last capture or pawn move can
+     * repeat, so the scan looks back at most halfmove-clock plies (and only at
+     * every second one, with the same side to move).
+     *
+     * @return The number of occurrences (1 if the position is new).
+     */
+    public int getRepetitionCount() {
+        int count = 1;
+        int oldest = Math.max(0, historyCount - halfmoveClock);
+        for (int i = historyCount - 2; i >= oldest; i -= 2) {
+            if (history[i] == hash) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether neither side has the material to checkmate: only kings,
+     * a single minor piece, or bishops that all stand on squares of one color.
+     * Uses the running piece counts, so it costs a few array reads.
+     *
+     * @return true if checkmate is impossible.
+     */
+    public boolean isInsufficientMaterial() {
+        for (int base = 0; base < Piece.COUNT; base += 6) {
+            if (pieceCounts[base + Piece.PAWN] + pieceCounts[base + Piece.ROOK] + pieceCounts[base + Piece.QUEEN] != 0) {
+                return false;
+            }
+        }
+        int knights = pieceCounts[Piece.KNIGHT] + pieceCounts[6 + Piece.KNIGHT];
+        int bishops = pieceCounts[Piece.BISHOP] + pieceCounts[6 + Piece.BISHOP];
+        if (knights + bishops <= 1) {
+            return true;
+        }
+        if (knights > 0) {
+            return false;
+        }
+        long allBishops = pieceBitboards[Piece.BISHOP] | pieceBitboards[6 + Piece.BISHOP];
+        return (allBishops & LIGHT_SQUARES) == 0 || (allBishops & ~LIGHT_SQUARES) == 0;
+    }
+
+    /**
+     * Checks whether the game is drawn by rule in the current position.
+     *
+     * @return The reason for the draw, or null if the game goes on.
+     */
+    public DrawReason getDrawReason() {
+        if (isInsufficientMaterial()) {
+            return DrawReason.INSUFFICIENT_MATERIAL;
+        }
+        if (halfmoveClock >= 100) {
+            return DrawReason.FIFTY_MOVE_RULE;
+        }
+        if (halfmoveClock >= 8 && getRepetitionCount() >= 3) {
+            return DrawReason.THREEFOLD_REPETITION;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the castling rights that remain (the king and rook involved have not moved).
+     * Whether castling is possible right now also depends on the squares between
+     * them and on attacks; see {@link #getMoveTargets(int)}.
+     *
+     * @return A bitmask of CASTLE_* constants.
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * Gets the file on which a pawn can be captured en passant on this move.
+     *
+     * @return The file (0-7, where 0 is the a-file), or -1 if no en-passant capture is possible.
+     */
+    public int getEnPassantFile() {
+        return enPassantFile;
+    }
+
+    /**
+     * Gets the piece that made the last successful move, as it was before
+     * the move (a pawn, if the move was a promotion).
+     *
+     * @return The moved piece, or null if no move has been made.
+     */
+    public Piece getLastMovedPiece() {
+        return lastMoved;
+    }
+
+    /**
+     * Gets the piece captured by the last successful move.
+     *
+     * @return The captured piece, or null if the last move captured nothing.
+     */
+    public Piece getLastCaptured() {
+        return lastCaptured;
+    }
+
+    /**
+     * Gets the side that won by capturing the opposing king with the last move.
+     *
+     * @return The winner, or null if the last move did not capture a king.
+     */
+    public Color getWinner() {
+        return lastCaptured != null && lastCaptured.getType() == Piece.KING ? lastCaptured.getSide().opposite() : null;
+    }
+
+    /**
+     * Describes the position in Forsyth-Edwards Notation.
+     *
+     * @return The FEN string of the current position.
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder(90);
+        for (int row = 0; row < 8; row++) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                Piece piece = board[row * 8 + col];
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                char letter = "PNBRQK".charAt(piece.getType());
+                fen.append(piece.getSide() == Color.WHITE ? letter : Character.toLowerCase(letter));
+            }
+            if (empty > 0) {
+                fen.append((char) ('0' + empty));
+            }
+            if (row < 7) {
+                fen.append('/');
+            }
+        }
+        fen.append(currentPlayer == Color.WHITE ? " w " : " b ");
+        if (castlingRights == 0) {
+            fen.append('-');
+        }
+        for (int i = 0; i < 4; i++) {
+            if ((castlingRights & (1 << i)) != 0) {
+                fen.append("KQkq".charAt(i));
+            }
+        }
+        if (enPassantFile < 0) {
+            fen.append(" -");
+        } else {
+            fen.append(' ').append((char) ('a' + enPassantFile)).append(currentPlayer == Color.WHITE ? '6' : '3');
+        }
+        fen.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+        return fen.toString();
+    }
+
+    /**
+     * Sets up the position described by a FEN string, like {@link #restore(byte[])}
+     * but also taking the halfmove clock and full move number when present.
+     * As there, an en-passant square no pawn can capture on is dropped.
+     * Move listeners are not notified.
+     *
+     * @param fen The FEN string; the two move counter fields are optional.
+     * @throws IllegalArgumentException if the string is not valid FEN.
+     */
+    public void loadFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("FEN needs at least 4 fields: " + fen);
+        }
+        byte[] data = new byte[SNAPSHOT_SIZE];
+        String[] ranks = fields[0].split("/", -1);
+        if (ranks.length != 8) {
+            throw new IllegalArgumentException("FEN placement needs 8 ranks: " + fen);
+        }
+        for (int row = 0; row < 8; row++) {
+            int col = 0;
+            for (int i = 0; i < ranks[row].length(); i++) {
+                char c = ranks[row].charAt(i);
+                if (c >= '1' && c <= '8') {
+                    col += c - '0';
+                    continue;
+                }
+                int type = "PNBRQK".indexOf(Character.toUpperCase(c));
+                if (type < 0 || col >= 8) {
+                    throw new IllegalArgumentException("Invalid piece placement in FEN: " + fen);
+                }
+                int square = row * 8 + col++;
+                int code = (Character.isUpperCase(c) ? 0 : 6) + type;
+                data[square >> 1] |= (byte) ((code + 1) << ((square & 1) * 4));
+            }
+            if (col != 8) {
+                throw new IllegalArgumentException("Rank " + (8 - row) + " does not have 8 squares in FEN: " + fen);
+            }
+        }
+
+        int flags;
+        if (fields[1].equals("w")) {
+            flags = 0;
+        } else if (fields[1].equals("b")) {
+            flags = 1;
+        } else {
+            throw new IllegalArgumentException("Invalid side to move in FEN: " + fen);
+        }
+        if (!fields[2].equals("-")) {
+            for (int i = 0; i < fields[2].length(); i++) {
+                int right = "KQkq".indexOf(fields[2].charAt(i));
+                if (right < 0) {
+                    throw new IllegalArgumentException("Invalid castling rights in FEN: " + fen);
+                }
+                flags |= 1 << (right + 1);
+            }
+        }
+        data[32] = (byte) flags;
+        if (!fields[3].equals("-")) {
+            int target = Square.index(fields[3], 0);
+            // The target is behind a pawn that just moved two squares: rank 6 if white moves, rank 3 if black
+            if (fields[3].length() != 2 || target == Square.NONE || (target >> 3) != ((flags & 1) == 0 ? 2 : 5)) {
+                throw new IllegalArgumentException("Invalid en-passant square in FEN: " + fen);
+            }
+            data[33] = (byte) ((target & 7) + 1);
+        }
+
+        int halfmoves = 0;
+        int fullmoves = 1;
+        try {
+            if (fields.length > 4) {
+                halfmoves = Integer.parseInt(fields[4]);
+            }
+            if (fields.length > 5) {
+                fullmoves = Integer.parseInt(fields[5]);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid move counters in FEN: " + fen);
+        }
+        if (halfmoves < 0 || fullmoves < 1) {
+            throw new IllegalArgumentException("Invalid move counters in FEN: " + fen);
+        }
+
+        restore(data);
+        halfmoveClock = halfmoves;
+        fullmoveNumber = fullmoves;
+        publish(0L);
+    }
+
+    /**
+     * Converts chess notation (e.g., "e4") to a square index.
+     *
+     * @param notation The chess notation string (e.g., "e4", "A1").
+     * @return The square (row * 8 + col), or {@link Square#NONE} if invalid.
+     */
+    public static int notationToSquare(String notation) {
+        return notation == null || notation.length() != 2 ? Square.NONE : Square.index(notation, 0);
+    }
+
     /**
      * Converts chess notation (e.g., "e4") to board coordinates.
+     * Prefer {@link #notationToSquare(String)}, which does not allocate.
      *
      * @param notation The chess notation string (e.g., "e4", "A1").
      * @return An array containing [row, col] coordinates, or null if invalid.
      */
     public static int[] notationToCoords(String notation) {
-        if (notation == null || notation.length() != 2) {
-            return null;
-        }
-        
-        char fileChar = notation.toUpperCase().charAt(0);
-        char rankChar = notation.charAt(1);
-        
-        // Validate file (A-H)
-        if (fileChar < 'A' || fileChar > 'H') {
-            return null;
-        }
-        
-        // Validate rank (1-8)
-        if (rankChar < '1' || rankChar > '8') {
-            return null;
-        }
-        
-        int col = fileChar - 'A'; // A=0, B=1, ..., H=7
-        int row = 8 - Character.getNumericValue(rankChar); // 8=0, 7=1, ..., 1=7
-        
-        return new int[]{row, col};
+        int square = notationToSquare(notation);
+        return square == Square.NONE ? null : new int[]{square >> 3, square & 7};
     }
 
     /**
@@ -235,14 +1305,8 @@ public class Board {
      * @return The chess notation string (e.g., "e4"), or null if invalid.
      */
     public static String coordsToNotation(int row, int col) {
-        if (row < 0 || row >= 8 || col < 0 || col >= 8) {
-            return null;
-        }
-        
-        char fileChar = (char) ('A' + col);
-        char rankChar = (char) ('1' + (7 - row));
-        
-        return "" + fileChar + rankChar;
+        Square square = Square.of(row, col);
+        return square == null ? null : square.getNotation();
     }
 
     /**
@@ -251,6 +1315,15 @@ public class Board {
      * @return The current player ("white" or "black").
      */
     public String getCurrentPlayer() {
+        return currentPlayer.getName();
+    }
+
+    /**
+     * Gets the side whose turn it is.
+     *
+     * @return The color to move.
+     */
+    public Color getSideToMove() {
         return currentPlayer;
     }
 
@@ -260,8 +1333,22 @@ public class Board {
      * @param player The player to set as current ("white" or "black").
      */
     public void setCurrentPlayer(String player) {
-        if (player.equals("white") || player.equals("black")) {
-            this.currentPlayer = player;
+        Color color = Color.fromString(player);
+        if (color != null) {
+            setSideToMove(color);
+        }
+    }
+
+    /**
+     * Sets the side whose turn it is.
+     *
+     * @param color The color to move.
+     */
+    public void setSideToMove(Color color) {
+        if (color != currentPlayer) {
+            hash ^= Zobrist.BLACK_TO_MOVE;
+            this.currentPlayer = color;
+            publish(-1L);
         }
     }
 
@@ -269,8 +1356,12 @@ public class Board {
      * Resets the board to the initial game state.
      */
     public void reset() {
-        currentPlayer = "white";
+        currentPlayer = Color.WHITE;
+        fullmoveNumber = 1;
         initializeBoard();
+        for (MoveListener listener : listeners) {
+            listener.boardReset();
+        }
     }
 
     /**
@@ -281,7 +1372,7 @@ public class Board {
      * @return true if the position is valid, false otherwise.
      */
     public boolean isValidPosition(int row, int col) {
-        return row >= 0 && row < 8 && col >= 0 && col < 8;
+        return Square.isValid(row, col);
     }
 
     /**
@@ -295,7 +1386,17 @@ public class Board {
         if (!isValidPosition(row, col)) {
             return false;
         }
-        return board[row][col] == null;
+        return board[row * 8 + col] == null;
+    }
+
+    /**
+     * Checks if a square is empty.
+     *
+     * @param square The square (row * 8 + col, 0-63).
+     * @return true if the square is empty, false otherwise.
+     */
+    public boolean isEmpty(int square) {
+        return ((occupancy[0] | occupancy[1]) & (1L << square)) == 0;
     }
 
     /**
@@ -304,15 +1405,7 @@ public class Board {
      * @return The count of pieces currently on the board.
      */
     public int getPieceCount() {
-        int count = 0;
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                if (board[row][col] != null) {
-                    count++;
-                }
-            }
-        }
-        return count;
+        return Long.bitCount(occupancy[0] | occupancy[1]);
     }
 
     /**
@@ -322,15 +1415,78 @@ public class Board {
      * @return The count of pieces for the specified color.
      */
     public int getPieceCount(String color) {
-        int count = 0;
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                if (board[row][col] != null && board[row][col].getColor().equals(color)) {
-                    count++;
-                }
-            }
+        Color side = Color.fromString(color);
+        return side == null ? 0 : getPieceCount(side);
+    }
+
+    /**
+     * Gets the number of pieces for a specific side.
+     *
+     * @param color The color to count.
+     * @return The count of pieces for the specified color.
+     */
+    public int getPieceCount(Color color) {
+        return Long.bitCount(occupancy[color.ordinal()]);
+    }
+
+    /**
+     * Gets the number of pieces a side has on the board, i.e. the size of its piece list.
+     *
+     * @param color The side.
+     * @return The number of pieces.
+     */
+    public int getPieceListSize(Color color) {
+        return pieceListSize[color.ordinal()];
+    }
+
+    /**
+     * Gets the square of one of a side's pieces. Together with
+     * {@link #getPieceListSize(Color)} this iterates a side's pieces without
+     * scanning empty squares. The order changes as pieces move and are captured.
+     *
+     * @param color The side.
+     * @param index The position in the list (0 to getPieceListSize(color) - 1).
+     * @return The square (row * 8 + col).
+     */
+    public int getPieceSquare(Color color, int index) {
+        if (index < 0 || index >= pieceListSize[color.ordinal()]) {
+            throw new IndexOutOfBoundsException("Piece index " + index + " out of range");
         }
-        return count;
+        return pieceSquares[color.ordinal()][index];
+    }
+
+    /**
+     * Gets the number of pieces a side has captured this game.
+     *
+     * @param byColor The capturing side.
+     * @return The number of captured pieces.
+     */
+    public int getCapturedCount(Color byColor) {
+        return capturedCount[byColor.ordinal()];
+    }
+
+    /**
+     * Gets a piece captured by a side, in the order of capture.
+     *
+     * @param byColor The capturing side.
+     * @param index The capture number (0 to getCapturedCount(byColor) - 1).
+     * @return The captured piece.
+     */
+    public Piece getCapturedPiece(Color byColor, int index) {
+        if (index < 0 || index >= capturedCount[byColor.ordinal()]) {
+            throw new IndexOutOfBoundsException("Capture index " + index + " out of range");
+        }
+        return captured[byColor.ordinal()][index];
+    }
+
+    /**
+     * Gets the number of pieces of one kind on the board.
+     *
+     * @param piece The piece to count.
+     * @return The count.
+     */
+    public int getPieceCount(Piece piece) {
+        return pieceCounts[piece.getCode()];
     }
 }
 
@@ -0,0 +1,213 @@
+package board;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import pieces.Color;
+import pieces.Piece;
+
+/**
+ * Something that happened on a board, delivered by a {@link BoardEventPublisher}.
+ *
+ * Events are pooled and shared between subscribers: an event object is only
+ * valid inside {@link BoardEventSubscriber#onEvent(BoardEvent)} and is reused
+ * afterwards, so subscribers must copy any fields they need later instead of
+ * keeping the event.
+ */
+public final class BoardEvent {
+    /**
+     * Kind of board event. One applied move produces a MOVE event, followed
+     * by CAPTURE, PROMOTION and GAME_END events when they apply.
+     */
+    public enum Type {
+        /** A move was applied. */
+        MOVE,
+        /** The move captured a piece. */
+        CAPTURE,
+        /** The move promoted a pawn. */
+        PROMOTION,
+        /** The move ended the game, by capturing a king or by a draw. */
+        GAME_END,
+        /** The board was reset to the starting position. */
+        RESET
+    }
+
+    private static final int POOL_SIZE = 256;
+    private static final BoardEvent[] POOL = new BoardEvent[POOL_SIZE];
+    private static int pooled;
+
+    private final AtomicInteger references = new AtomicInteger();
+    private Type type;
+    private long sequence;
+    private int move;
+    private Piece piece;
+    private Piece capturedPiece;
+    private Piece promotedTo;
+    private Color winner;
+    private DrawReason drawReason;
+    private BoardSnapshot position;
+
+    private BoardEvent() {
+    }
+
+    /**
+     * Takes an event from the pool (or creates one) and clears it.
+     */
+    static BoardEvent obtain(Type type, long sequence, int move) {
+        BoardEvent event = null;
+        synchronized (POOL) {
+            if (pooled > 0) {
+                event = POOL[--pooled];
+                POOL[pooled] = null;
+            }
+        }
+        if (event == null) {
+            event = new BoardEvent();
+        }
+        event.type = type;
+        event.sequence = sequence;
+        event.move = move;
+        event.piece = null;
+        event.capturedPiece = null;
+        event.promotedTo = null;
+        event.winner = null;
+        event.drawReason = null;
+        event.position = null;
+        return event;
+    }
+
+    BoardEvent piece(Piece piece) {
+        this.piece = piece;
+        return this;
+    }
+
+    BoardEvent capturedPiece(Piece capturedPiece) {
+        this.capturedPiece = capturedPiece;
+        return this;
+    }
+
+    BoardEvent promotedTo(Piece promotedTo) {
+        this.promotedTo = promotedTo;
+        return this;
+    }
+
+    BoardEvent result(Color winner, DrawReason drawReason) {
+        this.winner = winner;
+        this.drawReason = drawReason;
+        return this;
+    }
+
+    BoardEvent position(BoardSnapshot position) {
+        this.position = position;
+        return this;
+    }
+
+    /**
+     * Sets how many subscribers must release the event before it is reused.
+     */
+    void retain(int count) {
+        references.set(count);
+    }
+
+    /**
+     * Releases one reference; the last release returns the event to the pool.
+     * Called by {@link BoardEventSubscriber} after handling the event, and by
+     * the publisher for subscribers that dropped it.
+     */
+    void release() {
+        if (references.decrementAndGet() == 0) {
+            synchronized (POOL) {
+                if (pooled < POOL_SIZE) {
+                    POOL[pooled++] = this;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the kind of event.
+     *
+     * @return The event type.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the event's sequence number; events from one publisher are numbered
+     * consecutively, so a gap shows that events were dropped.
+     *
+     * @return The sequence number.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets the move the event belongs to.
+     *
+     * @return The packed move (see {@link Move}), or {@link Move#NONE} for RESET.
+     */
+    public int getMove() {
+        return move;
+    }
+
+    /**
+     * Gets the piece that moved, as it was before the move.
+     *
+     * @return The moving piece, or null for RESET.
+     */
+    public Piece getPiece() {
+        return piece;
+    }
+
+    /**
+     * Gets the captured piece (CAPTURE events, and GAME_END by king capture).
+     *
+     * @return The captured piece, or null.
+     */
+    public Piece getCapturedPiece() {
+        return capturedPiece;
+    }
+
+    /**
+     * Gets the piece a pawn promoted to (PROMOTION events).
+     *
+     * @return The new piece, or null.
+     */
+    public Piece getPromotedTo() {
+        return promotedTo;
+    }
+
+    /**
+     * Gets the winner of the game (GAME_END events).
+     *
+     * @return The winning side, or null if the game was drawn.
+     */
+    public Color getWinner() {
+        return winner;
+    }
+
+    /**
+     * Gets why the game was drawn (GAME_END events).
+     *
+     * @return The draw reason, or null if a side won.
+     */
+    public DrawReason getDrawReason() {
+        return drawReason;
+    }
+
+    /**
+     * Gets the position after the event. Unlike the event itself, the
+     * snapshot is immutable and may be kept after onEvent returns.
+     *
+     * @return The board's published snapshot at the time of the event.
+     */
+    public BoardSnapshot getPosition() {
+        return position;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + type + (move != Move.NONE ? " " + Move.toUci(move) : "");
+    }
+}
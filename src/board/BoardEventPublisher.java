@@ -0,0 +1,156 @@
+package board;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.LongAdder;
+
+import pieces.Piece;
+
+/**
+ * Publishes what happens on a board as a stream of {@link BoardEvent}s, so
+ * that views and services can react to moves, captures, promotions and the
+ * end of the game instead of inspecting the board around every move.
+ *
+ * Events go through a {@link SubmissionPublisher}: each subscriber has its
+ * own bounded buffer and is called on the executor, never on the thread that
+ * applied the move. Events are offered without blocking; if a subscriber's
+ * buffer is full the event is dropped for that subscriber only (and counted
+ * in {@link #getDroppedEvents()}), so a slow subscriber never delays moves.
+ * Any event can be dropped this way, GAME_END and RESET included, so
+ * consumers that must see every move or must not miss the end of the game,
+ * like the game journal, the console game and the GUI, stay synchronous
+ * {@link MoveListener}s instead and ask the board ({@link Board#getWinner()},
+ * {@link Board#getDrawReason()}) right after each move. Counters that can
+ * tolerate a gap, like the capture and game counts of
+ * {@link metrics.Metrics#watch(Board)}, subscribe here.
+ */
+public class BoardEventPublisher implements MoveListener, AutoCloseable {
+    /** Default per-subscriber buffer size. */
+    public static final int DEFAULT_BUFFER_SIZE = 256;
+
+    private final Board board;
+    private final SubmissionPublisher<BoardEvent> publisher;
+    private final LongAdder dropped = new LongAdder();
+    private long sequence;
+
+    /**
+     * Creates a publisher for a board, delivering on the common fork-join pool.
+     *
+     * @param board The board to publish events for.
+     */
+    public BoardEventPublisher(Board board) {
+        this(board, ForkJoinPool.commonPool(), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a publisher for a board.
+     *
+     * @param board The board to publish events for.
+     * @param executor The executor that calls subscribers.
+     * @param bufferSize The maximum number of undelivered events per subscriber.
+     */
+    public BoardEventPublisher(Board board, Executor executor, int bufferSize) {
+        this.board = board;
+        this.publisher = new SubmissionPublisher<>(executor, bufferSize);
+        board.addMoveListener(this);
+    }
+
+    /**
+     * Adds a subscriber; it receives events published from now on.
+     *
+     * @param subscriber The subscriber.
+     */
+    public synchronized void subscribe(BoardEventSubscriber subscriber) {
+        subscriber.source = this;
+        subscriber.lastSequence = sequence - 1;
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Ends a cancelled subscriber's subscription if nothing is buffered for it.
+     * A Flow subscription discards its buffer on cancel without releasing the
+     * events, so until the subscriber has taken the latest event it stays
+     * subscribed and releases what it receives. After a drop the latest event
+     * never arrives; the subscription then ends with the next event, or when
+     * the publisher is closed.
+     */
+    synchronized void cancel(BoardEventSubscriber subscriber) {
+        Flow.Subscription subscription = subscriber.getSubscription();
+        if (subscription != null && subscriber.lastSequence == sequence - 1) {
+            subscription.cancel();
+        }
+    }
+
+    @Override
+    public synchronized void moveApplied(int move) {
+        Piece moved = board.getLastMovedPiece();
+        Piece captured = board.getLastCaptured();
+        Piece arrived = board.getPiece(Move.to(move));
+
+        publish(BoardEvent.obtain(BoardEvent.Type.MOVE, sequence++, move).piece(moved));
+        if (captured != null) {
+            publish(BoardEvent.obtain(BoardEvent.Type.CAPTURE, sequence++, move)
+                              .piece(moved).capturedPiece(captured));
+        }
+        if (arrived != moved) {
+            publish(BoardEvent.obtain(BoardEvent.Type.PROMOTION, sequence++, move)
+                              .piece(moved).promotedTo(arrived));
+        }
+
+        if (board.getWinner() != null) {
+            publish(BoardEvent.obtain(BoardEvent.Type.GAME_END, sequence++, move)
+                              .piece(moved).capturedPiece(captured).result(board.getWinner(), null));
+        } else {
+            DrawReason draw = board.getDrawReason();
+            if (draw != null) {
+                publish(BoardEvent.obtain(BoardEvent.Type.GAME_END, sequence++, move)
+                                  .piece(moved).result(null, draw));
+            }
+        }
+    }
+
+    @Override
+    public synchronized void boardReset() {
+        publish(BoardEvent.obtain(BoardEvent.Type.RESET, sequence++, Move.NONE));
+    }
+
+    /**
+     * Offers an event to every subscriber without blocking.
+     * The caller holds the lock, which keeps the subscriber count, and so the
+     * event's reference count, in step with the subscribers that receive it.
+     */
+    private void publish(BoardEvent event) {
+        event.position(board.getPublishedSnapshot());
+        int subscribers = publisher.getNumberOfSubscribers();
+        event.retain(Math.max(1, subscribers));
+        if (subscribers == 0 || publisher.isClosed()) {
+            event.release();
+            return;
+        }
+        publisher.offer(event, (subscriber, item) -> {
+            dropped.increment();
+            item.release();
+            return false;
+        });
+    }
+
+    /**
+     * Gets the number of events dropped because a subscriber's buffer was full.
+     *
+     * @return The total number of drops over all subscribers.
+     */
+    public long getDroppedEvents() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stops publishing, detaches from the board and completes all subscribers.
+     */
+    @Override
+    public void close() {
+        board.removeMoveListener(this);
+        publisher.close();
+    }
+}
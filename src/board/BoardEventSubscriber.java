@@ -0,0 +1,76 @@
+package board;
+
+import java.util.concurrent.Flow;
+
+/**
+ * Base class for subscribers to a {@link BoardEventPublisher}.
+ * Handles the Flow protocol and returns each event to the pool after
+ * {@link #onEvent(BoardEvent)}; subclasses only implement onEvent.
+ * Events are delivered one at a time on a publisher thread, never on the
+ * thread that moved the pieces.
+ */
+public abstract class BoardEventSubscriber implements Flow.Subscriber<BoardEvent> {
+    private volatile Flow.Subscription subscription;
+    private volatile boolean cancelled;
+    // Set by BoardEventPublisher.subscribe
+    volatile BoardEventPublisher source;
+    // Sequence number of the last event received, or of the last one published before subscribing
+    volatile long lastSequence;
+
+    @Override
+    public final void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        // The publisher's per-subscriber buffer bounds what is in flight; overflow is dropped
+        subscription.request(Long.MAX_VALUE);
+        if (cancelled) {
+            source.cancel(this);
+        }
+    }
+
+    @Override
+    public final void onNext(BoardEvent event) {
+        lastSequence = event.getSequence();
+        try {
+            if (!cancelled) {
+                onEvent(event);
+            }
+        } finally {
+            event.release();
+        }
+        if (cancelled) {
+            source.cancel(this);
+        }
+    }
+
+    /**
+     * Handles one event. The event must not be used after this method returns.
+     *
+     * @param event The event.
+     */
+    protected abstract void onEvent(BoardEvent event);
+
+    @Override
+    public void onError(Throwable throwable) {
+        System.err.println("Board event stream failed: " + throwable);
+    }
+
+    @Override
+    public void onComplete() {
+    }
+
+    /**
+     * Stops handling events. Events already buffered for this subscriber are
+     * still taken and returned to the pool, without calling onEvent; the
+     * subscription itself ends once the buffer is empty.
+     */
+    public void cancel() {
+        cancelled = true;
+        if (source != null) {
+            source.cancel(this);
+        }
+    }
+
+    Flow.Subscription getSubscription() {
+        return subscription;
+    }
+}
@@ -0,0 +1,149 @@
+package board;
+
+import pieces.Color;
+import pieces.Piece;
+
+/**
+ * An immutable copy of a board position, safe to read from any thread.
+ *
+ * A {@link Board} publishes a new snapshot after every change through a
+ * volatile field (see {@link Board#getPublishedSnapshot()}), so background
+ * threads such as hint search, autosave or spectator feeds can read a
+ * consistent position without locking the board while the thread that owns
+ * it keeps making moves. Squares are stored as one byte each (0 for empty,
+ * otherwise piece code + 1) in a flat 64-byte array that is never written
+ * after construction.
+ */
+public final class BoardSnapshot {
+    private final byte[] squares;
+    private final Color sideToMove;
+    private final int castlingRights;
+    private final int enPassantFile;
+    private final int halfmoveClock;
+    private final int fullmoveNumber;
+    private final long hash;
+    private final long version;
+
+    BoardSnapshot(byte[] squares, Color sideToMove, int castlingRights, int enPassantFile,
+                  int halfmoveClock, int fullmoveNumber, long hash, long version) {
+        this.squares = squares;
+        this.sideToMove = sideToMove;
+        this.castlingRights = castlingRights;
+        this.enPassantFile = enPassantFile;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        this.hash = hash;
+        this.version = version;
+    }
+
+    /**
+     * Gets the piece on a square.
+     *
+     * @param square The square (row * 8 + col).
+     * @return The piece, or null if the square is empty.
+     */
+    public Piece getPiece(int square) {
+        int code = squares[square];
+        return code == 0 ? null : Piece.fromCode(code - 1);
+    }
+
+    /**
+     * Copies the square array, for building the next snapshot.
+     */
+    byte[] copySquares() {
+        return squares.clone();
+    }
+
+    /**
+     * Gets the side to move.
+     *
+     * @return The color to move.
+     */
+    public Color getSideToMove() {
+        return sideToMove;
+    }
+
+    /**
+     * Gets the castling rights.
+     *
+     * @return The rights as a bitmask of the Board.CASTLE_* constants.
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * Gets the en-passant file.
+     *
+     * @return The file (0-7) of a pawn that can be taken en passant, or -1.
+     */
+    public int getEnPassantFile() {
+        return enPassantFile;
+    }
+
+    /**
+     * Gets the halfmove clock.
+     *
+     * @return Plies since the last capture or pawn move.
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * Gets the full move number.
+     *
+     * @return The full move number.
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * Gets the Zobrist hash of the position.
+     *
+     * @return The same value {@link Board#getHash()} returned when the snapshot was taken.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Gets the snapshot's version. Every snapshot a board publishes has a
+     * higher version than the one before, so a reader can tell whether the
+     * position changed since it last looked.
+     *
+     * @return The version number.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Packs the position in the format of {@link Board#snapshot(byte[], int)}.
+     *
+     * @param data The array to write to.
+     * @param offset The index of the first byte to write.
+     */
+    public void pack(byte[] data, int offset) {
+        for (int square = 0; square < 64; square += 2) {
+            data[offset + (square >> 1)] = (byte) (squares[square] | (squares[square + 1] << 4));
+        }
+        data[offset + 32] = (byte) ((sideToMove == Color.BLACK ? 1 : 0) | (castlingRights << 1));
+        data[offset + 33] = (byte) (enPassantFile + 1);
+    }
+
+    /**
+     * Creates a mutable board holding this position, e.g. for a background
+     * search. Move counters and the game history are not carried over.
+     *
+     * @return A new board.
+     */
+    public Board toBoard() {
+        byte[] data = new byte[Board.SNAPSHOT_SIZE];
+        pack(data, 0);
+        Board board = new Board();
+        board.restore(data);
+        return board;
+    }
+}
@@ -0,0 +1,222 @@
+package board;
+
+import java.io.PrintStream;
+
+import metrics.RepaintEvent;
+import pieces.Color;
+import pieces.Piece;
+
+/**
+ * Renders a board as text for the console.
+ * The whole frame is built into a reusable byte buffer from a static glyph
+ * table and written with a single call, instead of one print per cell.
+ *
+ * In ANSI mode the first frame clears the screen and pins the board to the
+ * top of the terminal (the lines below it become a scrolling region for
+ * prompts and messages); later frames only move the cursor to the cells
+ * that changed and redraw those.
+ */
+public class ConsoleRenderer {
+    /** Two-character glyph per piece code: wP, wN, ..., bK. */
+    private static final String GLYPHS = "wPwNwBwRwQwKbPbNbBbRbQbK";
+    private static final String FILE_LABELS = "    A   B   C   D   E   F   G   H\n";
+    private static final String BORDER = "  +---+---+---+---+---+---+---+---+\n";
+
+    // Screen layout of a frame (1-based terminal lines and columns)
+    private static final int PLAYER_LINE = 3;
+    private static final int PLAYER_COLUMN = 17;
+    private static final int FIRST_ROW_LINE = 7;
+    private static final int FIRST_CELL_COLUMN = 4;
+    private static final int FRAME_LINES = 24;
+
+    private final PrintStream out;
+    private final boolean ansi;
+
+    private byte[] buffer = new byte[2048];
+    private int length;
+
+    // What is currently on screen, used by ANSI mode to redraw only changes
+    private final byte[] shownCells = new byte[64];
+    private Color shownPlayer;
+    private boolean drawn;
+
+    /**
+     * Creates a renderer writing to the given stream.
+     *
+     * @param out The stream to write frames to.
+     * @param ansi true to redraw only changed cells using ANSI escape sequences.
+     */
+    public ConsoleRenderer(PrintStream out, boolean ansi) {
+        this.out = out;
+        this.ansi = ansi;
+    }
+
+    /**
+     * Renders the board and flushes it to the stream in one write.
+     *
+     * @param board The board to render.
+     */
+    public void render(Board board) {
+        RepaintEvent event = new RepaintEvent();
+        event.begin();
+        length = 0;
+        if (ansi && drawn) {
+            appendChanges(board);
+        } else {
+            appendFrame(board);
+        }
+        out.write(buffer, 0, length);
+        out.flush();
+        event.end();
+        if (event.shouldCommit()) {
+            event.view = "console";
+            event.commit();
+        }
+    }
+
+    /**
+     * Restores the terminal after ANSI rendering (releases the scrolling
+     * region and moves the cursor below the board). Does nothing in plain mode.
+     */
+    public void finish() {
+        if (ansi && drawn) {
+            length = 0;
+            append("\033[r");
+            moveTo(FRAME_LINES + 1, 1);
+            out.write(buffer, 0, length);
+            out.flush();
+            drawn = false;
+        }
+    }
+
+    /**
+     * Appends a complete frame.
+     */
+    private void appendFrame(Board board) {
+        Piece[] squares = board.getBoard();
+        Color player = board.getSideToMove();
+
+        if (ansi) {
+            // Reset any scrolling region, clear the screen and home the cursor
+            append("\033[r\033[2J\033[H");
+        }
+
+        append("\n=== CHESS BOARD ===\nCurrent player: ");
+        append(player == Color.WHITE ? "WHITE" : "BLACK");
+        append("\n\n");
+
+        append(FILE_LABELS);
+        append(BORDER);
+        for (int row = 0; row < 8; row++) {
+            char rank = (char) ('8' - row);
+            append(rank);
+            append(" |");
+            for (int col = 0; col < 8; col++) {
+                appendCell(squares[row * 8 + col]);
+                append('|');
+            }
+            append(' ');
+            append(rank);
+            append('\n');
+            append(BORDER);
+        }
+        append(FILE_LABELS);
+        append('\n');
+
+        if (ansi) {
+            // Keep the board fixed and let prompts scroll underneath it
+            append("\033[");
+            appendNumber(FRAME_LINES + 1);
+            append('r');
+            moveTo(FRAME_LINES + 1, 1);
+
+            for (int square = 0; square < 64; square++) {
+                shownCells[square] = cellCode(squares[square]);
+            }
+            shownPlayer = player;
+            drawn = true;
+        }
+    }
+
+    /**
+     * Appends cursor movements and glyphs for the cells that changed since the last frame.
+     */
+    private void appendChanges(Board board) {
+        Piece[] squares = board.getBoard();
+        Color player = board.getSideToMove();
+
+        append("\0337"); // Save cursor
+        if (player != shownPlayer) {
+            moveTo(PLAYER_LINE, PLAYER_COLUMN);
+            append(player == Color.WHITE ? "WHITE" : "BLACK");
+            shownPlayer = player;
+        }
+        for (int square = 0; square < 64; square++) {
+            byte code = cellCode(squares[square]);
+            if (code != shownCells[square]) {
+                moveTo(FIRST_ROW_LINE + 2 * (square >> 3), FIRST_CELL_COLUMN + 4 * (square & 7));
+                appendCell(squares[square]);
+                shownCells[square] = code;
+            }
+        }
+        append("\0338"); // Restore cursor
+    }
+
+    /**
+     * Appends the three characters of a cell: a space and the piece glyph, or blanks.
+     */
+    private void appendCell(Piece piece) {
+        append(' ');
+        if (piece == null) {
+            append(' ');
+            append(' ');
+        } else {
+            int code = piece.getCode();
+            append(GLYPHS.charAt(code * 2));
+            append(GLYPHS.charAt(code * 2 + 1));
+        }
+    }
+
+    /**
+     * Gets the value stored in shownCells for a piece (0 for an empty square).
+     */
+    private static byte cellCode(Piece piece) {
+        return (byte) (piece == null ? 0 : piece.getCode() + 1);
+    }
+
+    /**
+     * Appends an ANSI cursor-position sequence.
+     */
+    private void moveTo(int line, int column) {
+        append("\033[");
+        appendNumber(line);
+        append(';');
+        appendNumber(column);
+        append('H');
+    }
+
+    private void appendNumber(int value) {
+        if (value >= 10) {
+            appendNumber(value / 10);
+        }
+        append((char) ('0' + value % 10));
+    }
+
+    private void append(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            append(text.charAt(i));
+        }
+    }
+
+    /**
+     * Appends one ASCII character, growing the buffer if needed.
+     */
+    private void append(char c) {
+        if (length == buffer.length) {
+            byte[] larger = new byte[buffer.length * 2];
+            System.arraycopy(buffer, 0, larger, 0, length);
+            buffer = larger;
+        }
+        buffer[length++] = (byte) c;
+    }
+}
@@ -0,0 +1,22 @@
+package board;
+
+/**
+ * Reason a game is drawn by rule.
+ */
+public enum DrawReason {
+    /** The same position occurred three times with the same side to move. */
+    THREEFOLD_REPETITION,
+    /** Fifty moves by each side without a capture or pawn move. */
+    FIFTY_MOVE_RULE,
+    /** Neither side has enough material to checkmate. */
+    INSUFFICIENT_MATERIAL;
+
+    /**
+     * Gets a readable description of the reason.
+     *
+     * @return The description, e.g. "threefold repetition".
+     */
+    public String getDescription() {
+        return name().toLowerCase().replace('_', ' ');
+    }
+}
@@ -0,0 +1,88 @@
+package board;
+
+import utils.Square;
+
+/**
+ * Helpers for moves packed into a single int.
+ * Bits 0-5 hold the source square and bits 6-11 the destination square
+ * (both row * 8 + col), and bits 12-14 the piece type a pawn promotes to
+ * (0 when the move is not a promotion, since pawns never promote to pawns).
+ */
+public final class Move {
+    /** Value used for "no move"; a move from a8 to a8 is never valid. */
+    public static final int NONE = 0;
+
+    private Move() {
+    }
+
+    /**
+     * Packs a move without promotion.
+     *
+     * @param from The source square (0-63).
+     * @param to The destination square (0-63).
+     * @return The packed move.
+     */
+    public static int of(int from, int to) {
+        return from | (to << 6);
+    }
+
+    /**
+     * Packs a move with an optional promotion piece.
+     *
+     * @param from The source square (0-63).
+     * @param to The destination square (0-63).
+     * @param promotion The piece type to promote to (Piece.KNIGHT to Piece.QUEEN), or 0 for none.
+     * @return The packed move.
+     */
+    public static int of(int from, int to, int promotion) {
+        return from | (to << 6) | (promotion << 12);
+    }
+
+    /**
+     * Gets the source square of a packed move.
+     *
+     * @param move The packed move.
+     * @return The source square (0-63).
+     */
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    /**
+     * Gets the destination square of a packed move.
+     *
+     * @param move The packed move.
+     * @return The destination square (0-63).
+     */
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * Gets the promotion piece type of a packed move.
+     *
+     * @param move The packed move.
+     * @return The piece type to promote to, or 0 if the move is not a promotion.
+     */
+    public static int promotion(int move) {
+        return (move >>> 12) & 7;
+    }
+
+    /**
+     * Formats a packed move in UCI long algebraic notation (e.g. "e2e4", "e7e8q").
+     *
+     * @param move The packed move.
+     * @return The move in UCI notation.
+     */
+    public static String toUci(int move) {
+        int from = from(move);
+        int to = to(move);
+        if (promotion(move) == 0) {
+            return Square.name(from).concat(Square.name(to));
+        }
+        StringBuilder text = new StringBuilder(5);
+        text.append(Square.name(from)).append(Square.name(to));
+        text.append("pnbrqk".charAt(promotion(move)));
+        return text.toString();
+    }
+}
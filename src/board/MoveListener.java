@@ -0,0 +1,22 @@
+package board;
+
+/**
+ * Receives notifications about changes to a {@link Board}.
+ * Listeners are called synchronously on the thread that changed the board,
+ * so implementations must return quickly.
+ */
+public interface MoveListener {
+
+    /**
+     * Called after a move has been applied to the board.
+     *
+     * @param move The packed move (see {@link Move}).
+     */
+    void moveApplied(int move);
+
+    /**
+     * Called after the board has been reset to the starting position.
+     */
+    default void boardReset() {
+    }
+}
@@ -0,0 +1,231 @@
+package board;
+
+import pieces.Color;
+import pieces.Piece;
+import utils.Square;
+
+/**
+ * Single-pass parser for move input, returning packed moves (see {@link Move}).
+ * Accepted formats:
+ * - Square pairs: "E2 E4", "e2-e4", optionally followed by a promotion piece ("e7 e8 Q")
+ * - UCI long algebraic: "e2e4", "e7e8q"
+ * - SAN: "Nf3", "exd5", "Rad1", "e8=Q", "O-O", "O-O-O" (check and annotation marks are ignored)
+ *
+ * SAN moves are resolved against the side to move on the given board. The
+ * parser works directly on the input characters and allocates nothing.
+ */
+public final class MoveParser {
+    private static final String PIECE_LETTERS = "PNBRQK";
+
+    private MoveParser() {
+    }
+
+    /**
+     * Parses a move.
+     *
+     * @param input The move text.
+     * @param board The board used to resolve SAN moves.
+     * @return The packed move, or {@link Move#NONE} if the input is not a move
+     *         or a SAN move matches no piece or more than one.
+     */
+    public static int parse(String input, Board board) {
+        return parse(input, 0, input.length(), board);
+    }
+
+    /**
+     * Parses a move from part of a character sequence, e.g. one token of a longer line.
+     *
+     * @param input The text containing the move.
+     * @param start The index of the first character of the move.
+     * @param end The index after the last character of the move.
+     * @param board The board used to resolve SAN moves.
+     * @return The packed move, or {@link Move#NONE} if the text is not a move.
+     */
+    public static int parse(CharSequence input, int start, int end, Board board) {
+        while (start < end && Character.isWhitespace(input.charAt(start))) {
+            start++;
+        }
+        while (end > start && isIgnoredSuffix(input.charAt(end - 1))) {
+            end--;
+        }
+        if (start == end) {
+            return Move.NONE;
+        }
+
+        int move = parseSquarePair(input, start, end);
+        if (move != Move.NONE) {
+            return move;
+        }
+        return parseSan(input, start, end, board);
+    }
+
+    /**
+     * Parses square-pair and UCI input: two squares with optional separators and promotion.
+     */
+    private static int parseSquarePair(CharSequence input, int start, int end) {
+        if (end - start < 4) {
+            return Move.NONE;
+        }
+        int i = start;
+        int from = Square.index(input, i);
+        if (from == Square.NONE) {
+            return Move.NONE;
+        }
+        i += 2;
+        while (i < end && isSeparator(input.charAt(i))) {
+            i++;
+        }
+        if (end - i < 2) {
+            return Move.NONE;
+        }
+        int to = Square.index(input, i);
+        if (to == Square.NONE) {
+            return Move.NONE;
+        }
+        i += 2;
+
+        int promotion = 0;
+        while (i < end && (input.charAt(i) == ' ' || input.charAt(i) == '=')) {
+            i++;
+        }
+        if (i < end) {
+            promotion = promotionType(input.charAt(i), true);
+            if (promotion == 0 || i + 1 != end) {
+                return Move.NONE;
+            }
+        }
+        return Move.of(from, to, promotion);
+    }
+
+    /**
+     * Parses standard algebraic notation, resolving the moving piece on the board.
+     */
+    private static int parseSan(CharSequence input, int start, int end, Board board) {
+        Color side = board.getSideToMove();
+        int castle = castlingLength(input, start, end);
+        if (castle != 0) {
+            int kingSquare = side == Color.WHITE ? 60 : 4;
+            return Move.of(kingSquare, castle == 3 ? kingSquare + 2 : kingSquare - 2);
+        }
+
+        int i = start;
+        int type = Piece.PAWN;
+        int letter = PIECE_LETTERS.indexOf(input.charAt(i));
+        if (letter >= 0) {
+            type = letter;
+            i++;
+        }
+
+        // Read the promotion and target square from the end
+        int j = end;
+        int promotion = 0;
+        if (type == Piece.PAWN && j - i >= 3) {
+            char last = input.charAt(j - 1);
+            boolean afterEquals = input.charAt(j - 2) == '=';
+            int candidate = promotionType(last, afterEquals);
+            if (candidate != 0) {
+                promotion = candidate;
+                j -= afterEquals ? 2 : 1;
+            }
+        }
+        if (j - i < 2) {
+            return Move.NONE;
+        }
+        int to = Square.index(input, j - 2);
+        if (to == Square.NONE) {
+            return Move.NONE;
+        }
+        j -= 2;
+        if (j > i && (input.charAt(j - 1) == 'x' || input.charAt(j - 1) == ':')) {
+            j--;
+        }
+
+        // Whatever is left is disambiguation: a file, a rank, or both
+        int fileHint = -1;
+        int rowHint = -1;
+        for (; i < j; i++) {
+            char c = input.charAt(i);
+            if (c >= 'a' && c <= 'h' && fileHint < 0) {
+                fileHint = c - 'a';
+            } else if (c >= '1' && c <= '8' && rowHint < 0) {
+                rowHint = '8' - c;
+            } else {
+                return Move.NONE;
+            }
+        }
+        if (type == Piece.PAWN && fileHint < 0) {
+            // A pawn move without a capture stays on its file
+            fileHint = to & 7;
+        }
+
+        Piece piece = Piece.of(side, type);
+        long toBit = 1L << to;
+        int found = Move.NONE;
+        for (long candidates = board.getPieceBitboard(piece); candidates != 0; candidates &= candidates - 1) {
+            int from = Long.numberOfTrailingZeros(candidates);
+            if ((fileHint >= 0 && (from & 7) != fileHint) || (rowHint >= 0 && (from >> 3) != rowHint)) {
+                continue;
+            }
+            if ((board.getMoveTargets(from) & toBit) != 0) {
+                if (found != Move.NONE) {
+                    return Move.NONE; // Ambiguous
+                }
+                found = Move.of(from, to, promotion);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Recognizes castling ("O-O", "O-O-O", also written with zeros).
+     *
+     * @return 3 for king side, 5 for queen side, 0 if the input is not castling.
+     */
+    private static int castlingLength(CharSequence input, int start, int end) {
+        int length = end - start;
+        if (length != 3 && length != 5) {
+            return 0;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = input.charAt(start + i);
+            boolean ok = (i % 2 == 0) ? (c == 'O' || c == 'o' || c == '0') : c == '-';
+            if (!ok) {
+                return 0;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Maps a promotion letter to a piece type.
+     *
+     * @param c The letter.
+     * @param allowLowercase true if lowercase letters are accepted.
+     * @return The piece type, or 0 if the letter is not a promotion piece.
+     */
+    private static int promotionType(char c, boolean allowLowercase) {
+        if (allowLowercase && c >= 'a' && c <= 'z') {
+            c = (char) (c - 'a' + 'A');
+        }
+        switch (c) {
+            case 'N':
+                return Piece.KNIGHT;
+            case 'B':
+                return Piece.BISHOP;
+            case 'R':
+                return Piece.ROOK;
+            case 'Q':
+                return Piece.QUEEN;
+            default:
+                return 0;
+        }
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '\t' || c == '-';
+    }
+
+    private static boolean isIgnoredSuffix(char c) {
+        return c == '+' || c == '#' || c == '!' || c == '?' || Character.isWhitespace(c);
+    }
+}
@@ -0,0 +1,17 @@
+package board;
+
+/**
+ * Outcome of applying a move to a board.
+ */
+public enum MoveResult {
+    /** The move was applied. */
+    OK,
+    /** There is no piece on the source square. */
+    NO_PIECE,
+    /** The piece on the source square belongs to the side not to move. */
+    WRONG_TURN,
+    /** The destination holds a piece of the moving side. */
+    OWN_PIECE,
+    /** The piece cannot move to the destination. */
+    ILLEGAL
+}
@@ -0,0 +1,80 @@
+package board;
+
+/**
+ * Random keys for Zobrist hashing of positions.
+ * A position's hash is the XOR of one key per (piece, square) pair on the
+ * board, a key when black is to move, one for the castling rights and one
+ * for the en-passant file, so a move updates it with a few XORs. The keys
+ * come from a fixed-seed generator and never change between runs, because
+ * hashes are stored on disk by the position database.
+ */
+final class Zobrist {
+    private static final long[] PIECE_SQUARE = new long[12 * 64];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT = new long[8];
+
+    /** Key XORed in when black is to move. */
+    static final long BLACK_TO_MOVE;
+
+    static {
+        long state = 0x2F0B3C5D7E9A1C4BL;
+        for (int i = 0; i < PIECE_SQUARE.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            PIECE_SQUARE[i] = mix(state);
+        }
+        state += 0x9E3779B97F4A7C15L;
+        BLACK_TO_MOVE = mix(state);
+        // No rights hashes to 0 so positions without castling keep their piece-only hash
+        for (int i = 1; i < CASTLING.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            CASTLING[i] = mix(state);
+        }
+        for (int i = 0; i < EN_PASSANT.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            EN_PASSANT[i] = mix(state);
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Gets the key for a piece standing on a square.
+     *
+     * @param code The piece code (see {@link pieces.Piece#getCode()}).
+     * @param square The square (row * 8 + col).
+     * @return The key.
+     */
+    static long piece(int code, int square) {
+        return PIECE_SQUARE[code * 64 + square];
+    }
+
+    /**
+     * Gets the key for a set of castling rights.
+     *
+     * @param rights The castling rights bitmask (see {@link Board#getCastlingRights()}).
+     * @return The key.
+     */
+    static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    /**
+     * Gets the key for an en-passant file.
+     *
+     * @param file The file (0-7), or -1 for none.
+     * @return The key, 0 if there is no en-passant file.
+     */
+    static long enPassant(int file) {
+        return file < 0 ? 0L : EN_PASSANT[file];
+    }
+
+    /**
+     * SplitMix64 output function.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,39 @@
+package db;
+
+/**
+ * Final result of a game, as recorded in the position database.
+ */
+public enum GameResult {
+    /** White won ("1-0"). */
+    WHITE_WINS,
+    /** The game was drawn ("1/2-1/2"). */
+    DRAW,
+    /** Black won ("0-1"). */
+    BLACK_WINS;
+
+    /**
+     * Parses a PGN result token.
+     *
+     * @param text The text containing the token.
+     * @param start The index of the first character of the token.
+     * @param end The index after the last character of the token.
+     * @return The result, or null if the token is not a decisive or drawn result
+     *         (including "*" for an unfinished game).
+     */
+    public static GameResult fromToken(CharSequence text, int start, int end) {
+        int length = end - start;
+        if (length == 3 && text.charAt(start + 1) == '-') {
+            char first = text.charAt(start);
+            char last = text.charAt(start + 2);
+            if (first == '1' && last == '0') {
+                return WHITE_WINS;
+            }
+            if (first == '0' && last == '1') {
+                return BLACK_WINS;
+            }
+        } else if (length == 7 && "1/2-1/2".contentEquals(text.subSequence(start, end))) {
+            return DRAW;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,475 @@
+package db;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import board.Board;
+import board.Move;
+import metrics.ComputationEvent;
+
+/**
+ * On-disk store of statistics per position, keyed by {@link Board#getHash()}.
+ *
+ * The file is a fixed-size open-addressing hash table that is memory-mapped,
+ * so a lookup is a few reads from the page cache with no system calls.
+ * After a 64-byte header come 64-byte slots (one cache line each):
+ *
+ *   0  long key (0 = empty slot)
+ *   8  int  sequence (odd while the slot is being written)
+ *   12 int  games, 16 int white wins, 20 int draws, 24 int black wins
+ *   32 four (int move, int count) pairs, most frequent next move first
+ *
+ * Any number of readers, in this or other processes, can look positions up
+ * while one writer adds games. The writer holds an exclusive file lock,
+ * collects games in memory and applies them in batches. Each slot is guarded
+ * by a sequence lock: readers retry if the sequence was odd or changed while
+ * they read, so they never block the writer and never see a torn entry. A
+ * new key is published only after its slot is filled in. A writer that dies
+ * mid-update leaves its slot's sequence odd; readers give up on such a slot
+ * after a bounded number of retries, and the next writer makes it even again
+ * when it opens the file.
+ *
+ * The table does not grow; once 7/8 of the slots are used, new positions are
+ * dropped (existing ones are still updated) and counted in
+ * {@link #getDroppedPositions()}.
+ */
+public class PositionDatabase implements Closeable {
+    /** Number of next moves kept per position. */
+    public static final int TOP_MOVES = 4;
+    /** Default number of slots for a new file (16 MiB). */
+    public static final int DEFAULT_CAPACITY = 1 << 18;
+
+    private static final int FILE_MAGIC = 0x43485044; // "CHPD"
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 64;
+    private static final int MAX_CAPACITY = 1 << 24;
+    private static final int BATCH_SIZE = 1 << 16;
+    // Reads of one slot before a lookup gives up on a writer that never finishes
+    private static final int MAX_READ_ATTEMPTS = 1 << 12;
+
+    // Header layout
+    private static final int HEADER_CAPACITY = 8;
+    private static final int HEADER_USED = 16;
+    private static final int HEADER_GAMES = 24;
+
+    // Slot layout
+    private static final int KEY = 0;
+    private static final int SEQUENCE = 8;
+    private static final int GAMES = 12;
+    private static final int RESULTS = 16;
+    private static final int MOVES = 32;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final FileLock writeLock;
+    private final int capacity;
+    private final int mask;
+
+    // Writer state, guarded by this
+    private long[] pendingKeys;
+    private int[] pendingMoves;
+    private byte[] pendingResults;
+    private int pendingCount;
+    private int pendingGames;
+    private long usedSlots;
+    private long gamesRecorded;
+    private long droppedPositions;
+
+    private PositionDatabase(FileChannel channel, MappedByteBuffer map, FileLock writeLock, int capacity) {
+        this.channel = channel;
+        this.map = map;
+        this.writeLock = writeLock;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.usedSlots = map.getLong(HEADER_USED);
+        this.gamesRecorded = map.getLong(HEADER_GAMES);
+        if (writeLock != null) {
+            pendingKeys = new long[1024];
+            pendingMoves = new int[1024];
+            pendingResults = new byte[1024];
+        }
+    }
+
+    /**
+     * Opens an existing database for lookups only.
+     *
+     * @param file The database file.
+     * @return The open database.
+     * @throws IOException if the file cannot be read or is not a position database.
+     */
+    public static PositionDatabase openForReading(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            int capacity = readCapacity(channel, file);
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                                               HEADER_SIZE + (long) capacity * SLOT_SIZE);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            return new PositionDatabase(channel, map, null, capacity);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a database for writing, creating it if it does not exist.
+     * Only one writer can have a file open at a time.
+     *
+     * @param file The database file.
+     * @param capacity Number of slots if the file is created (rounded up to a
+     *                 power of two); an existing file keeps its own capacity.
+     * @return The open database.
+     * @throws IOException if the file cannot be opened, is not a position
+     *                     database, or is already open for writing.
+     */
+    public static PositionDatabase openForWriting(Path file, int capacity) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                               StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                throw new IOException("Position database is already open for writing: " + file);
+            }
+
+            boolean created = channel.size() == 0;
+            if (created) {
+                capacity = Integer.highestOneBit(Math.max(16, Math.min(capacity, MAX_CAPACITY)) * 2 - 1);
+            } else {
+                capacity = readCapacity(channel, file);
+            }
+            // Mapping past the end of a new file extends it with zeros (empty slots)
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                                               HEADER_SIZE + (long) capacity * SLOT_SIZE);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            if (created) {
+                map.putInt(0, FILE_MAGIC).putInt(4, FORMAT_VERSION).putInt(HEADER_CAPACITY, capacity);
+                map.force();
+            } else if (repairSequences(map, capacity)) {
+                map.force();
+            }
+            return new PositionDatabase(channel, map, lock, capacity);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Makes every odd slot sequence even again. Only called while holding the
+     * write lock, when no other writer can be in the middle of an update, so
+     * an odd sequence was left by a writer that died.
+     *
+     * @return Whether any slot was repaired.
+     */
+    private static boolean repairSequences(MappedByteBuffer map, int capacity) {
+        boolean repaired = false;
+        for (int index = 0; index < capacity; index++) {
+            int slot = HEADER_SIZE + index * SLOT_SIZE;
+            int sequence = map.getInt(slot + SEQUENCE);
+            if ((sequence & 1) != 0) {
+                INTS.setRelease(map, slot + SEQUENCE, sequence + 1);
+                repaired = true;
+            }
+        }
+        return repaired;
+    }
+
+    /**
+     * Reads and validates the header of an existing file.
+     *
+     * @return The number of slots.
+     */
+    private static int readCapacity(FileChannel channel, Path file) throws IOException {
+        if (channel.size() < HEADER_SIZE) {
+            throw new IOException("Not a position database: " + file);
+        }
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        int capacity = header.getInt(HEADER_CAPACITY);
+        if (header.getInt(0) != FILE_MAGIC || header.getInt(4) != FORMAT_VERSION
+                || Integer.bitCount(capacity) != 1 || capacity > MAX_CAPACITY
+                || channel.size() < HEADER_SIZE + (long) capacity * SLOT_SIZE) {
+            throw new IOException("Not a position database: " + file);
+        }
+        return capacity;
+    }
+
+    /**
+     * Looks up the statistics of a position. Safe to call from any thread,
+     * also while games are being committed.
+     *
+     * @param hash The position hash (see {@link Board#getHash()}).
+     * @return The statistics, or null if the position has not been recorded or
+     *         its slot stayed locked by a writer for too long.
+     */
+    public PositionStats lookup(long hash) {
+        int slot = findSlot(keyOf(hash));
+        if (slot < 0 || (long) LONGS.getAcquire(map, slot + KEY) == 0) {
+            return null;
+        }
+
+        int games;
+        int whiteWins;
+        int draws;
+        int blackWins;
+        int[] entries = new int[2 * TOP_MOVES];
+        for (int attempt = 0; ; attempt++) {
+            int before = (int) INTS.getAcquire(map, slot + SEQUENCE);
+            if ((before & 1) == 0) {
+                games = map.getInt(slot + GAMES);
+                whiteWins = map.getInt(slot + RESULTS);
+                draws = map.getInt(slot + RESULTS + 4);
+                blackWins = map.getInt(slot + RESULTS + 8);
+                for (int i = 0; i < entries.length; i++) {
+                    entries[i] = map.getInt(slot + MOVES + 4 * i);
+                }
+                VarHandle.loadLoadFence();
+                if ((int) INTS.getOpaque(map, slot + SEQUENCE) == before) {
+                    break;
+                }
+            }
+            if (attempt == MAX_READ_ATTEMPTS) {
+                return null;
+            }
+            Thread.onSpinWait();
+        }
+
+        int moveCount = 0;
+        while (moveCount < TOP_MOVES && entries[2 * moveCount + 1] != 0) {
+            moveCount++;
+        }
+        int[] moves = new int[moveCount];
+        int[] counts = new int[moveCount];
+        for (int i = 0; i < moveCount; i++) {
+            moves[i] = entries[2 * i];
+            counts[i] = entries[2 * i + 1];
+        }
+        return new PositionStats(games, whiteWins, draws, blackWins, moves, counts);
+    }
+
+    /**
+     * Queues a finished game to be added to the database. Games are applied
+     * in batches; call {@link #commit()} to apply and persist them.
+     *
+     * @param hashes The hash of each position reached in the game, starting with the initial position.
+     * @param moves The move played from each position, or {@link Move#NONE} for the last one.
+     * @param count The number of positions.
+     * @param result The result of the game.
+     * @throws IllegalStateException if the database was opened for reading.
+     */
+    public synchronized void recordGame(long[] hashes, int[] moves, int count, GameResult result) {
+        if (writeLock == null) {
+            throw new IllegalStateException("Position database is open for reading only");
+        }
+        if (pendingCount + count > pendingKeys.length) {
+            int size = Math.max(pendingKeys.length * 2, pendingCount + count);
+            pendingKeys = Arrays.copyOf(pendingKeys, size);
+            pendingMoves = Arrays.copyOf(pendingMoves, size);
+            pendingResults = Arrays.copyOf(pendingResults, size);
+        }
+        for (int i = 0; i < count; i++) {
+            pendingKeys[pendingCount] = keyOf(hashes[i]);
+            pendingMoves[pendingCount] = moves[i];
+            pendingResults[pendingCount] = (byte) result.ordinal();
+            pendingCount++;
+        }
+        pendingGames++;
+        if (pendingCount >= BATCH_SIZE) {
+            applyPending();
+        }
+    }
+
+    /**
+     * Applies all queued games and forces the file to disk.
+     *
+     * @throws IllegalStateException if the database was opened for reading.
+     */
+    public synchronized void commit() {
+        if (writeLock == null) {
+            throw new IllegalStateException("Position database is open for reading only");
+        }
+        ComputationEvent event = new ComputationEvent("position database commit");
+        int positions = pendingCount;
+        applyPending();
+        map.force();
+        event.finish(positions);
+    }
+
+    /**
+     * Writes the queued positions into their slots.
+     */
+    private void applyPending() {
+        for (int i = 0; i < pendingCount; i++) {
+            update(pendingKeys[i], pendingMoves[i], pendingResults[i]);
+        }
+        gamesRecorded += pendingGames;
+        pendingCount = 0;
+        pendingGames = 0;
+        map.putLong(HEADER_USED, usedSlots).putLong(HEADER_GAMES, gamesRecorded);
+    }
+
+    /**
+     * Adds one visit of a position to its slot, claiming a new slot if needed.
+     */
+    private void update(long key, int move, int result) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            droppedPositions++;
+            return;
+        }
+        boolean claim = map.getLong(slot + KEY) == 0;
+        if (claim && usedSlots >= capacity - (capacity >> 3)) {
+            droppedPositions++;
+            return;
+        }
+
+        int sequence = map.getInt(slot + SEQUENCE);
+        INTS.setOpaque(map, slot + SEQUENCE, sequence + 1);
+        VarHandle.storeStoreFence();
+
+        map.putInt(slot + GAMES, map.getInt(slot + GAMES) + 1);
+        int resultOffset = slot + RESULTS + 4 * result;
+        map.putInt(resultOffset, map.getInt(resultOffset) + 1);
+        if (move != Move.NONE) {
+            addMove(slot, move);
+        }
+
+        INTS.setRelease(map, slot + SEQUENCE, sequence + 2);
+        if (claim) {
+            LONGS.setRelease(map, slot + KEY, key);
+            usedSlots++;
+        }
+    }
+
+    /**
+     * Counts a next move, keeping the list sorted by count. When the list is
+     * full, an unseen move replaces the least frequent one and inherits its
+     * count plus one (the Space-Saving heavy-hitters scheme), so a move that
+     * becomes popular later can still enter the list.
+     */
+    private void addMove(int slot, int move) {
+        int base = slot + MOVES;
+        int index = 0;
+        while (index < TOP_MOVES) {
+            int count = map.getInt(base + 8 * index + 4);
+            if (count == 0) {
+                map.putInt(base + 8 * index, move).putInt(base + 8 * index + 4, 1);
+                return;
+            }
+            if (map.getInt(base + 8 * index) == move) {
+                break;
+            }
+            index++;
+        }
+        if (index == TOP_MOVES) {
+            index = TOP_MOVES - 1;
+            map.putInt(base + 8 * index, move);
+        }
+        int count = map.getInt(base + 8 * index + 4) + 1;
+
+        // Move the entry up past entries with lower counts
+        while (index > 0 && map.getInt(base + 8 * (index - 1) + 4) < count) {
+            map.putInt(base + 8 * index, map.getInt(base + 8 * (index - 1)));
+            map.putInt(base + 8 * index + 4, map.getInt(base + 8 * (index - 1) + 4));
+            index--;
+        }
+        map.putInt(base + 8 * index, move).putInt(base + 8 * index + 4, count);
+    }
+
+    /**
+     * Probes for the slot holding a key, or the empty slot where it would go.
+     *
+     * @return The byte offset of the slot, or -1 if the table is full.
+     */
+    private int findSlot(long key) {
+        int index = (int) key & mask;
+        for (int probe = 0; probe < capacity; probe++) {
+            int slot = HEADER_SIZE + index * SLOT_SIZE;
+            long stored = (long) LONGS.getAcquire(map, slot + KEY);
+            if (stored == key || stored == 0) {
+                return slot;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Maps a hash to a stored key; 0 marks empty slots, so it is remapped.
+     */
+    private static long keyOf(long hash) {
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * Gets the number of slots in the table.
+     *
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of distinct positions stored.
+     *
+     * @return The number of used slots.
+     */
+    public synchronized long getPositionCount() {
+        return writeLock != null ? usedSlots : map.getLong(HEADER_USED);
+    }
+
+    /**
+     * Gets the number of games recorded.
+     *
+     * @return The game count (committed games only).
+     */
+    public synchronized long getGamesRecorded() {
+        return writeLock != null ? gamesRecorded : map.getLong(HEADER_GAMES);
+    }
+
+    /**
+     * Gets the number of position visits dropped because the table was full.
+     *
+     * @return The dropped count since the database was opened.
+     */
+    public synchronized long getDroppedPositions() {
+        return droppedPositions;
+    }
+
+    /**
+     * Commits queued games (when open for writing) and closes the file.
+     *
+     * @throws IOException if closing fails.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (writeLock != null && channel.isOpen()) {
+                commit();
+                writeLock.release();
+            }
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package db;
+
+import board.Move;
+
+/**
+ * Statistics stored for one position in the {@link PositionDatabase}.
+ * Counts are per visit: a position reached twice in the same game counts twice.
+ */
+public final class PositionStats {
+    private final int games;
+    private final int whiteWins;
+    private final int draws;
+    private final int blackWins;
+    private final int[] moves;
+    private final int[] moveCounts;
+
+    PositionStats(int games, int whiteWins, int draws, int blackWins, int[] moves, int[] moveCounts) {
+        this.games = games;
+        this.whiteWins = whiteWins;
+        this.draws = draws;
+        this.blackWins = blackWins;
+        this.moves = moves;
+        this.moveCounts = moveCounts;
+    }
+
+    /**
+     * Gets the number of recorded games that reached the position.
+     *
+     * @return The game count.
+     */
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * Gets the number of those games won by white.
+     *
+     * @return The white win count.
+     */
+    public int getWhiteWins() {
+        return whiteWins;
+    }
+
+    /**
+     * Gets the number of those games that were drawn.
+     *
+     * @return The draw count.
+     */
+    public int getDraws() {
+        return draws;
+    }
+
+    /**
+     * Gets the number of those games won by black.
+     *
+     * @return The black win count.
+     */
+    public int getBlackWins() {
+        return blackWins;
+    }
+
+    /**
+     * Gets how many of the most common next moves are recorded.
+     *
+     * @return The number of moves, at most {@link PositionDatabase#TOP_MOVES}.
+     */
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    /**
+     * Gets one of the most common next moves, most frequent first.
+     *
+     * @param index The index (0 to getMoveCount() - 1).
+     * @return The packed move (see {@link Move}).
+     */
+    public int getMove(int index) {
+        return moves[index];
+    }
+
+    /**
+     * Gets how often a next move was played. Counts of moves that entered
+     * the list late are approximate (they may include the count of the move
+     * they replaced).
+     *
+     * @param index The index (0 to getMoveCount() - 1).
+     * @return The number of times the move was played.
+     */
+    public int getMoveFrequency(int index) {
+        return moveCounts[index];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append(games).append(" games (+").append(whiteWins).append(" =").append(draws)
+            .append(" -").append(blackWins).append(')');
+        for (int i = 0; i < moves.length; i++) {
+            text.append(i == 0 ? ": " : ", ").append(Move.toUci(moves[i]))
+                .append(' ').append(moveCounts[i]);
+        }
+        return text.toString();
+    }
+}
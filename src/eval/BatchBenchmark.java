@@ -0,0 +1,89 @@
+package eval;
+
+import java.io.PrintStream;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import board.Board;
+import pieces.Color;
+
+/**
+ * Measures the throughput of {@link BatchEvaluator} by material and with a
+ * network, on positions from random games.
+ *
+ * Both are timed on one batch of positions that fits in a few megabytes.
+ * Material scoring is so fast that a round makes many passes over it, so
+ * its timing covers millions of positions without a batch that size.
+ *
+ * Network scores of the first positions are also checked against
+ * {@link NnueEvaluator}, which builds the same accumulators from a board.
+ */
+public final class BatchBenchmark {
+    private static final int POSITIONS = 1 << 16;
+    // Passes over the batch per material round
+    private static final int MATERIAL_PASSES = 64;
+    private static final int CHECKED_POSITIONS = 4096;
+    private static final int ROUNDS = 5;
+
+    private BatchBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark and prints positions per second for both evaluations.
+     *
+     * @param network The network to evaluate with.
+     * @param out Where to print the results.
+     */
+    public static void run(NnueNetwork network, PrintStream out) {
+        PositionBatch batch = new PositionBatch(POSITIONS);
+        Board board = new Board();
+        int[] checked = new int[CHECKED_POSITIONS];
+        try (NnueEvaluator evaluator = new NnueEvaluator(network, board)) {
+            int[][] games = NnueBenchmark.randomGames(new SplittableRandom(1));
+            for (int g = 0; batch.size() < batch.capacity(); g = (g + 1) % games.length) {
+                board.reset();
+                for (int i = 0; i < games[g].length && batch.size() < batch.capacity(); i++) {
+                    board.applyMove(games[g][i]);
+                    int index = batch.add(board);
+                    if (index < CHECKED_POSITIONS) {
+                        int score = evaluator.evaluate();
+                        checked[index] = board.getSideToMove() == Color.WHITE ? score : -score;
+                    }
+                }
+            }
+        }
+
+        int[] scores = new int[batch.size()];
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        out.printf("Batch evaluation on %d threads%n", pool.getParallelism());
+        long material = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            // The first rounds warm up the JIT; the last one is the result
+            long start = System.nanoTime();
+            for (int pass = 0; pass < MATERIAL_PASSES; pass++) {
+                BatchEvaluator.evaluate(batch, scores, pool);
+            }
+            material = System.nanoTime() - start;
+        }
+        out.printf("  material: %,14.0f positions/s%n", (double) batch.size() * MATERIAL_PASSES * 1e9 / material);
+
+        long elapsed = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            BatchEvaluator.evaluate(batch, network, scores, pool);
+            elapsed = System.nanoTime() - start;
+        }
+        out.printf("  network:  %,14.0f positions/s (hidden size %d)%n",
+                   batch.size() * 1e9 / elapsed, network.getHiddenSize());
+
+        int mismatches = 0;
+        for (int i = 0; i < CHECKED_POSITIONS; i++) {
+            if (scores[i] != checked[i]) {
+                mismatches++;
+            }
+        }
+        if (mismatches != 0) {
+            out.println("  WARNING: batch and board evaluations differ in " + mismatches + " positions");
+        }
+    }
+}
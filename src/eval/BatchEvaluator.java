@@ -0,0 +1,184 @@
+package eval;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import pieces.Color;
+import pieces.Piece;
+
+/**
+ * Scores every position of a {@link PositionBatch}, either by material
+ * balance or with an {@link NnueNetwork}.
+ *
+ * The batch is split across a fork/join pool, and each task walks its
+ * range in cache-sized blocks. For material, the evaluator makes one pass
+ * per piece type over each block's contiguous bitboard arrays. Each pass is
+ * a popcount, subtract and multiply-add with no branches, so the JIT
+ * unrolls and vectorizes it. With a network, each position's accumulators
+ * are built straight from its bitboards into two arrays the task reuses,
+ * and the output layer is the same as {@link NnueEvaluator}'s. No board is
+ * built and nothing is allocated per position.
+ *
+ * Scores are in centipawns from white's point of view. Material uses
+ * {@link Piece#value(int)} and does not count kings.
+ */
+public final class BatchEvaluator {
+    /** Positions scored together; the arrays for one block stay in the L1/L2 cache. */
+    static final int BLOCK_SIZE = 1024;
+    // Ranges at most this long are scored by one task instead of being split further
+    private static final int SPLIT_THRESHOLD = 16 * BLOCK_SIZE;
+    // Network evaluations cost far more than material, so their ranges are split sooner
+    private static final int NETWORK_SPLIT_THRESHOLD = 2 * BLOCK_SIZE;
+
+    private BatchEvaluator() {
+    }
+
+    /**
+     * Scores all positions of a batch by material on the common fork/join pool.
+     *
+     * @param batch The positions.
+     * @param scores Receives the score of position i at index i; at least batch.size() long.
+     */
+    public static void evaluate(PositionBatch batch, int[] scores) {
+        evaluate(batch, null, scores, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Scores all positions of a batch by material on the given pool.
+     *
+     * @param batch The positions.
+     * @param scores Receives the score of position i at index i; at least batch.size() long.
+     * @param pool The pool to run on.
+     */
+    public static void evaluate(PositionBatch batch, int[] scores, ForkJoinPool pool) {
+        evaluate(batch, null, scores, pool);
+    }
+
+    /**
+     * Scores all positions of a batch with a network on the common fork/join pool.
+     *
+     * @param batch The positions.
+     * @param network The network to evaluate with.
+     * @param scores Receives the score of position i at index i; at least batch.size() long.
+     */
+    public static void evaluate(PositionBatch batch, NnueNetwork network, int[] scores) {
+        evaluate(batch, network, scores, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Scores all positions of a batch on the given pool.
+     *
+     * @param batch The positions.
+     * @param network The network to evaluate with, or null to score material.
+     * @param scores Receives the score of position i at index i; at least batch.size() long.
+     * @param pool The pool to run on.
+     */
+    public static void evaluate(PositionBatch batch, NnueNetwork network, int[] scores, ForkJoinPool pool) {
+        if (scores.length < batch.size()) {
+            throw new IllegalArgumentException("Score array holds " + scores.length + " of "
+                                               + batch.size() + " positions");
+        }
+        if (batch.size() <= splitThreshold(network)) {
+            evaluateRange(batch, network, scores, 0, batch.size());
+        } else {
+            pool.invoke(new EvaluateTask(batch, network, scores, 0, batch.size()));
+        }
+    }
+
+    private static int splitThreshold(NnueNetwork network) {
+        return network == null ? SPLIT_THRESHOLD : NETWORK_SPLIT_THRESHOLD;
+    }
+
+    /**
+     * Scores positions start (inclusive) to end (exclusive), block by block.
+     */
+    static void evaluateRange(PositionBatch batch, NnueNetwork network, int[] scores, int start, int end) {
+        if (network != null) {
+            evaluateNetwork(batch, network, scores, start, end);
+            return;
+        }
+        for (int blockStart = start; blockStart < end; blockStart += BLOCK_SIZE) {
+            evaluateBlock(batch, scores, blockStart, Math.min(blockStart + BLOCK_SIZE, end));
+        }
+    }
+
+    private static void evaluateBlock(PositionBatch batch, int[] scores, int start, int end) {
+        for (int i = start; i < end; i++) {
+            scores[i] = 0;
+        }
+        for (int type = Piece.PAWN; type < Piece.KING; type++) {
+            int value = Piece.value(type);
+            long[] white = batch.pieces[type];
+            long[] black = batch.pieces[6 + type];
+            for (int i = start; i < end; i++) {
+                scores[i] += value * (Long.bitCount(white[i]) - Long.bitCount(black[i]));
+            }
+        }
+    }
+
+    /**
+     * Builds the accumulators of each position from its bitboards and runs
+     * the network's output layer.
+     */
+    private static void evaluateNetwork(PositionBatch batch, NnueNetwork network, int[] scores, int start, int end) {
+        int hiddenSize = network.getHiddenSize();
+        short[] weights = network.featureWeights;
+        short[] white = new short[hiddenSize];
+        short[] black = new short[hiddenSize];
+        for (int i = start; i < end; i++) {
+            System.arraycopy(network.hiddenBias, 0, white, 0, hiddenSize);
+            System.arraycopy(network.hiddenBias, 0, black, 0, hiddenSize);
+            for (int code = 0; code < Piece.COUNT; code++) {
+                Piece piece = Piece.fromCode(code);
+                for (long squares = batch.pieces[code][i]; squares != 0; squares &= squares - 1) {
+                    int square = Long.numberOfTrailingZeros(squares);
+                    addColumn(white, weights, NnueNetwork.feature(Color.WHITE, piece, square) * hiddenSize);
+                    addColumn(black, weights, NnueNetwork.feature(Color.BLACK, piece, square) * hiddenSize);
+                }
+            }
+            // The network scores for the side to move
+            scores[i] = batch.blackToMove[i] != 0
+                        ? -NnueEvaluator.output(network, black, white)
+                        : NnueEvaluator.output(network, white, black);
+        }
+    }
+
+    private static void addColumn(short[] accumulator, short[] weights, int column) {
+        for (int i = 0; i < accumulator.length; i++) {
+            accumulator[i] += weights[column + i];
+        }
+    }
+
+    /**
+     * Splits a range in halves until it is small enough to score directly.
+     */
+    private static final class EvaluateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient PositionBatch batch;
+        private final transient NnueNetwork network;
+        private final int[] scores;
+        private final int start;
+        private final int end;
+
+        EvaluateTask(PositionBatch batch, NnueNetwork network, int[] scores, int start, int end) {
+            this.batch = batch;
+            this.network = network;
+            this.scores = scores;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= splitThreshold(network)) {
+                evaluateRange(batch, network, scores, start, end);
+                return;
+            }
+            // Split on a block boundary so no block is shared between tasks
+            int middle = start + ((end - start) / 2 / BLOCK_SIZE) * BLOCK_SIZE;
+            invokeAll(new EvaluateTask(batch, network, scores, start, middle),
+                      new EvaluateTask(batch, network, scores, middle, end));
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package eval;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import board.Board;
+import pieces.Color;
+import pieces.Piece;
+
+/**
+ * Weights of a hand-crafted evaluation: a material value per piece type and
+ * a piece-square table per piece type, both in centipawns. Tables are
+ * written for white (index = row * 8 + col); black pieces use the mirrored
+ * square. The evaluation of a position is the sum of material plus table
+ * entries for white's pieces minus the same for black's.
+ *
+ * The defaults are the material values of {@link Piece#value(int)} (with
+ * the king at 0) and empty tables; {@link TexelTuner} fits better values
+ * from labeled positions. Parameters are saved as text: the word
+ * "material" and six values, then for each piece type "pst", its name and
+ * 64 values from a8 to h1.
+ */
+public final class EvalParameters {
+    /** Number of parameters: 6 material values and 6 tables of 64 squares. */
+    public static final int COUNT = 6 + 6 * 64;
+
+    private static final String[] TYPE_NAMES = {"pawn", "knight", "bishop", "rook", "queen", "king"};
+
+    private final double[] weights;
+
+    /**
+     * Creates the default parameters.
+     */
+    public EvalParameters() {
+        weights = new double[COUNT];
+        for (int type = Piece.PAWN; type < Piece.KING; type++) {
+            weights[type] = Piece.value(type);
+        }
+    }
+
+    /**
+     * Creates parameters from a weight vector laid out as {@link #materialIndex(int)}
+     * and {@link #pieceSquareIndex(int, int)} describe.
+     *
+     * @param weights The weights; copied.
+     */
+    public EvalParameters(double[] weights) {
+        if (weights.length != COUNT) {
+            throw new IllegalArgumentException("Expected " + COUNT + " weights, got " + weights.length);
+        }
+        this.weights = weights.clone();
+    }
+
+    /**
+     * Gets the index of a material value in the weight vector.
+     *
+     * @param type The piece type.
+     * @return The index.
+     */
+    public static int materialIndex(int type) {
+        return type;
+    }
+
+    /**
+     * Gets the index of a piece-square entry in the weight vector.
+     *
+     * @param type The piece type.
+     * @param square The square from white's point of view (row * 8 + col).
+     * @return The index.
+     */
+    public static int pieceSquareIndex(int type, int square) {
+        return 6 + type * 64 + square;
+    }
+
+    /**
+     * Gets a copy of the weight vector.
+     *
+     * @return The weights.
+     */
+    public double[] getWeights() {
+        return weights.clone();
+    }
+
+    /**
+     * Gets a piece type's material value.
+     *
+     * @param type The piece type.
+     * @return The value in centipawns.
+     */
+    public double getMaterial(int type) {
+        return weights[materialIndex(type)];
+    }
+
+    /**
+     * Gets a piece-square table entry.
+     *
+     * @param type The piece type.
+     * @param square The square from white's point of view (row * 8 + col).
+     * @return The bonus in centipawns.
+     */
+    public double getPieceSquare(int type, int square) {
+        return weights[pieceSquareIndex(type, square)];
+    }
+
+    /**
+     * Evaluates a board's position.
+     *
+     * @param board The board.
+     * @return The evaluation in centipawns from white's point of view.
+     */
+    public int evaluate(Board board) {
+        double score = 0;
+        for (int code = 0; code < Piece.COUNT; code++) {
+            Piece piece = Piece.fromCode(code);
+            int type = piece.getType();
+            boolean white = piece.getSide() == Color.WHITE;
+            for (long squares = board.getPieceBitboard(piece); squares != 0; squares &= squares - 1) {
+                int square = Long.numberOfTrailingZeros(squares);
+                double term = weights[type] + weights[pieceSquareIndex(type, white ? square : square ^ 56)];
+                score += white ? term : -term;
+            }
+        }
+        return (int) Math.round(score);
+    }
+
+    /**
+     * Loads parameters saved by {@link #save(Path)}.
+     *
+     * @param file The file.
+     * @return The parameters.
+     * @throws IOException if the file cannot be read or is malformed.
+     */
+    public static EvalParameters load(Path file) throws IOException {
+        String[] tokens = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim().split("\\s+");
+        double[] weights = new double[COUNT];
+        int next = 0;
+        try {
+            if (!tokens[next++].equals("material")) {
+                throw new IOException("Expected \"material\" in " + file);
+            }
+            for (int type = 0; type < 6; type++) {
+                weights[materialIndex(type)] = Double.parseDouble(tokens[next++]);
+            }
+            for (int type = 0; type < 6; type++) {
+                if (!tokens[next++].equals("pst") || !tokens[next++].equals(TYPE_NAMES[type])) {
+                    throw new IOException("Expected \"pst " + TYPE_NAMES[type] + "\" in " + file);
+                }
+                for (int square = 0; square < 64; square++) {
+                    weights[pieceSquareIndex(type, square)] = Double.parseDouble(tokens[next++]);
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Malformed parameter file " + file + ": " + e.getMessage());
+        }
+        return new EvalParameters(weights);
+    }
+
+    /**
+     * Saves the parameters as text, rounded to whole centipawns.
+     *
+     * @param file The file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void save(Path file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(toString());
+        }
+    }
+
+    /**
+     * Formats the parameters in the saved text format.
+     *
+     * @return The text.
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(4096);
+        text.append("material");
+        for (int type = 0; type < 6; type++) {
+            text.append(' ').append(Math.round(weights[materialIndex(type)]));
+        }
+        text.append(System.lineSeparator());
+        for (int type = 0; type < 6; type++) {
+            text.append("pst ").append(TYPE_NAMES[type]).append(System.lineSeparator());
+            for (int row = 0; row < 8; row++) {
+                for (int col = 0; col < 8; col++) {
+                    text.append(String.format("%5d", Math.round(weights[pieceSquareIndex(type, row * 8 + col)])));
+                }
+                text.append(System.lineSeparator());
+            }
+        }
+        return text.toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof EvalParameters && Arrays.equals(weights, ((EvalParameters) obj).weights);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(weights);
+    }
+}
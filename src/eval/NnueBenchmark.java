@@ -0,0 +1,123 @@
+package eval;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import board.Board;
+import board.Move;
+import board.MoveResult;
+import pieces.Color;
+import pieces.Piece;
+
+/**
+ * Measures evaluation throughput with incrementally updated accumulators
+ * against rebuilding them from scratch for every position.
+ *
+ * Both runs replay the same random games and evaluate after every move, so
+ * the difference is the cost of the accumulator work alone.
+ */
+public final class NnueBenchmark {
+    private static final int GAMES = 200;
+    private static final int MAX_PLIES = 200;
+    private static final int ROUNDS = 5;
+
+    private NnueBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark and prints evaluations per second for both modes.
+     *
+     * @param network The network to evaluate with.
+     * @param out Where to print the results.
+     */
+    public static void run(NnueNetwork network, PrintStream out) {
+        int[][] games = randomGames(new SplittableRandom(1));
+        int positions = 0;
+        for (int[] game : games) {
+            positions += game.length;
+        }
+        int[] incrementalScores = new int[positions];
+        int[] scratchScores = new int[positions];
+        int mismatches = 0;
+        for (int round = 1; round <= ROUNDS; round++) {
+            // The first rounds warm up the JIT; the last one is the result
+            long incremental = replay(network, games, false, incrementalScores);
+            long scratch = replay(network, games, true, scratchScores);
+            for (int i = 0; i < positions; i++) {
+                if (incrementalScores[i] != scratchScores[i]) {
+                    mismatches++;
+                }
+            }
+            if (round == ROUNDS) {
+                out.printf("NNUE hidden size %d, %d positions%n", network.getHiddenSize(), positions);
+                out.printf("  incremental:  %,12.0f evaluations/s%n", positions * 1e9 / incremental);
+                out.printf("  full refresh: %,12.0f evaluations/s%n", positions * 1e9 / scratch);
+            }
+        }
+        if (mismatches != 0) {
+            out.println("  WARNING: incremental and full evaluations differ in " + mismatches + " positions");
+        }
+    }
+
+    /**
+     * Replays the games, evaluating after every move.
+     *
+     * @param scores Receives the score of every position, in order.
+     * @return The elapsed nanoseconds.
+     */
+    private static long replay(NnueNetwork network, int[][] games, boolean fromScratch, int[] scores) {
+        Board board = new Board();
+        int evaluations = 0;
+        long start = System.nanoTime();
+        try (NnueEvaluator evaluator = new NnueEvaluator(network, board)) {
+            for (int[] game : games) {
+                board.reset();
+                for (int move : game) {
+                    board.applyMove(move);
+                    scores[evaluations++] = fromScratch ? evaluator.evaluateFromScratch() : evaluator.evaluate();
+                }
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Plays random games of pseudo-legal moves until a king is captured or
+     * the ply limit is reached.
+     */
+    static int[][] randomGames(SplittableRandom random) {
+        int[][] games = new int[GAMES][];
+        int[] moves = new int[256];
+        int[] played = new int[MAX_PLIES];
+        Board board = new Board();
+        for (int g = 0; g < GAMES; g++) {
+            board.reset();
+            int plies = 0;
+            while (plies < MAX_PLIES) {
+                int count = 0;
+                Color side = board.getSideToMove();
+                for (int i = 0; i < board.getPieceListSize(side); i++) {
+                    int from = board.getPieceSquare(side, i);
+                    for (long targets = board.getMoveTargets(from); targets != 0; targets &= targets - 1) {
+                        moves[count++] = Move.of(from, Long.numberOfTrailingZeros(targets));
+                    }
+                }
+                if (count == 0) {
+                    break;
+                }
+                int move = moves[random.nextInt(count)];
+                Piece captured = board.getPiece(Move.to(move));
+                if (board.applyMove(move) != MoveResult.OK) {
+                    break;
+                }
+                played[plies++] = move;
+                if (captured != null && captured.getType() == Piece.KING) {
+                    break;
+                }
+            }
+            games[g] = Arrays.copyOf(played, plies);
+        }
+        return games;
+    }
+}
@@ -0,0 +1,209 @@
+package eval;
+
+import board.Board;
+import board.Move;
+import board.MoveListener;
+import pieces.Color;
+import pieces.Piece;
+
+/**
+ * Evaluates the positions of one board with an {@link NnueNetwork}.
+ *
+ * The evaluator listens to the board and keeps the network's hidden layer
+ * (the accumulator, one per perspective) in step with it: a quiet move
+ * subtracts the moving piece's feature column and adds the one for its new
+ * square, a capture also subtracts the captured piece, and castling moves
+ * the rook's column as well. An evaluation then only needs the small
+ * output layer, instead of summing a column for every piece on the board.
+ * If the board changes without a move (a restore, for example) the
+ * accumulators are rebuilt from scratch.
+ *
+ * The inner loops are plain loops over int16 arrays with no branches or
+ * calls, the shape the JIT compiles to SIMD instructions (SSE/AVX2 on
+ * x86), so they vectorize without the incubating Vector API.
+ *
+ * Like the board, an evaluator must only be used by the thread that moves
+ * the pieces.
+ */
+public class NnueEvaluator implements MoveListener, AutoCloseable {
+    private final NnueNetwork network;
+    private final Board board;
+    private final int hiddenSize;
+    private final short[] whiteAccumulator;
+    private final short[] blackAccumulator;
+
+    // The position the accumulators describe, to find what a move changed
+    private final Piece[] pieces = new Piece[64];
+    private long syncedVersion;
+
+    /**
+     * Creates an evaluator for a board and starts following its moves.
+     *
+     * @param network The network to evaluate with.
+     * @param board The board to evaluate.
+     */
+    public NnueEvaluator(NnueNetwork network, Board board) {
+        this.network = network;
+        this.board = board;
+        this.hiddenSize = network.getHiddenSize();
+        this.whiteAccumulator = new short[hiddenSize];
+        this.blackAccumulator = new short[hiddenSize];
+        refresh();
+        board.addMoveListener(this);
+    }
+
+    /**
+     * Evaluates the board's current position.
+     *
+     * @return The evaluation in centipawns from the point of view of the side to move.
+     */
+    public int evaluate() {
+        if (board.getPublishedSnapshot().getVersion() != syncedVersion) {
+            refresh();
+        }
+        boolean white = board.getSideToMove() == Color.WHITE;
+        return output(network, white ? whiteAccumulator : blackAccumulator, white ? blackAccumulator : whiteAccumulator);
+    }
+
+    /**
+     * Runs the output layer on a pair of accumulators.
+     *
+     * @param us The accumulator of the side to move.
+     * @param them The accumulator of the other side.
+     * @return The evaluation in centipawns from the point of view of the side to move.
+     */
+    static int output(NnueNetwork network, short[] us, short[] them) {
+        int hiddenSize = network.getHiddenSize();
+        short[] weights = network.outputWeights;
+        long sum = dot(us, weights, 0, hiddenSize) + dot(them, weights, hiddenSize, hiddenSize);
+        return (int) ((sum + network.outputBias) * NnueNetwork.SCALE / (NnueNetwork.QA * NnueNetwork.QB));
+    }
+
+    /**
+     * Evaluates the board's current position after rebuilding the
+     * accumulators from scratch; the baseline the incremental updates are
+     * measured against.
+     *
+     * @return The evaluation in centipawns from the point of view of the side to move.
+     */
+    public int evaluateFromScratch() {
+        refresh();
+        return evaluate();
+    }
+
+    /**
+     * Rebuilds both accumulators from the pieces on the board.
+     */
+    public void refresh() {
+        System.arraycopy(network.hiddenBias, 0, whiteAccumulator, 0, hiddenSize);
+        System.arraycopy(network.hiddenBias, 0, blackAccumulator, 0, hiddenSize);
+        for (int square = 0; square < 64; square++) {
+            Piece piece = board.getPiece(square);
+            pieces[square] = piece;
+            if (piece != null) {
+                add(whiteAccumulator, column(Color.WHITE, piece, square));
+                add(blackAccumulator, column(Color.BLACK, piece, square));
+            }
+        }
+        syncedVersion = board.getPublishedSnapshot().getVersion();
+    }
+
+    @Override
+    public void moveApplied(int move) {
+        // The board publishes one snapshot per move; anything else means it changed behind our back
+        long version = board.getPublishedSnapshot().getVersion();
+        if (version != syncedVersion + 1) {
+            refresh();
+            return;
+        }
+        int from = Move.from(move);
+        int to = Move.to(move);
+        Piece moved = pieces[from];
+        Piece arrived = board.getPiece(to);
+        Piece captured = pieces[to];
+        int capturedSquare = to;
+        if (captured == null && moved.getType() == Piece.PAWN && (from & 7) != (to & 7)) {
+            capturedSquare = to + (moved.getSide() == Color.WHITE ? 8 : -8);
+            captured = pieces[capturedSquare];
+        }
+
+        move(moved, from, arrived, to);
+        if (captured != null) {
+            sub(whiteAccumulator, column(Color.WHITE, captured, capturedSquare));
+            sub(blackAccumulator, column(Color.BLACK, captured, capturedSquare));
+            pieces[capturedSquare] = null;
+        }
+        if (moved.getType() == Piece.KING && Math.abs(to - from) == 2) {
+            int rookFrom = to > from ? from + 3 : from - 4;
+            int rookTo = to > from ? from + 1 : from - 1;
+            Piece rook = pieces[rookFrom];
+            move(rook, rookFrom, rook, rookTo);
+            pieces[rookTo] = rook;
+            pieces[rookFrom] = null;
+        }
+        pieces[from] = null;
+        pieces[to] = arrived;
+        syncedVersion = version;
+    }
+
+    @Override
+    public void boardReset() {
+        refresh();
+    }
+
+    /**
+     * Stops following the board.
+     */
+    @Override
+    public void close() {
+        board.removeMoveListener(this);
+    }
+
+    /**
+     * Replaces a piece's column on one square by the column of a piece
+     * (the same one, or a promoted piece) on another, in one pass per perspective.
+     */
+    private void move(Piece piece, int from, Piece arrived, int to) {
+        addSub(whiteAccumulator, column(Color.WHITE, arrived, to), column(Color.WHITE, piece, from));
+        addSub(blackAccumulator, column(Color.BLACK, arrived, to), column(Color.BLACK, piece, from));
+    }
+
+    private int column(Color perspective, Piece piece, int square) {
+        return NnueNetwork.feature(perspective, piece, square) * hiddenSize;
+    }
+
+    private void add(short[] accumulator, int column) {
+        short[] weights = network.featureWeights;
+        for (int i = 0; i < hiddenSize; i++) {
+            accumulator[i] += weights[column + i];
+        }
+    }
+
+    private void sub(short[] accumulator, int column) {
+        short[] weights = network.featureWeights;
+        for (int i = 0; i < hiddenSize; i++) {
+            accumulator[i] -= weights[column + i];
+        }
+    }
+
+    private void addSub(short[] accumulator, int added, int removed) {
+        short[] weights = network.featureWeights;
+        for (int i = 0; i < hiddenSize; i++) {
+            accumulator[i] += weights[added + i] - weights[removed + i];
+        }
+    }
+
+    /**
+     * Sums clipped activations times output weights. Each product fits in
+     * an int, but the sum over the largest hidden layers a network file may
+     * have (4096 x 255 x 32767) does not, so it is kept in a long.
+     */
+    private static long dot(short[] accumulator, short[] weights, int offset, int length) {
+        long sum = 0;
+        for (int i = 0; i < length; i++) {
+            int activation = Math.min(Math.max(accumulator[i], 0), NnueNetwork.QA);
+            sum += activation * weights[offset + i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,177 @@
+package eval;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+import pieces.Color;
+import pieces.Piece;
+
+/**
+ * Quantized weights of an efficiently updatable neural network (NNUE).
+ *
+ * The network has 768 binary inputs per perspective (side of the piece
+ * relative to the perspective, piece type, square seen from that side), one
+ * hidden layer of {@link #getHiddenSize()} int16 neurons shared by both
+ * perspectives, and a single output. The hidden layer is what
+ * {@link NnueEvaluator} keeps up to date incrementally: each input that
+ * turns on or off adds or subtracts one column of feature weights.
+ *
+ * Weights are quantized as in common NNUE engines: hidden weights and
+ * biases are scaled by {@link #QA}, output weights by {@link #QB}, and the
+ * output bias by QA * QB. Activations are clipped to 0..QA.
+ *
+ * File format (little-endian): magic "CHNN", format version, hidden size,
+ * then int16 feature weights (768 columns of hidden-size values), int16
+ * hidden biases, int16 output weights (hidden size for the side to move,
+ * then hidden size for the other side) and an int32 output bias.
+ */
+public final class NnueNetwork {
+    /** Number of inputs per perspective: 2 sides x 6 piece types x 64 squares. */
+    public static final int FEATURES = 768;
+    /** Quantization scale of the hidden layer; also the activation clip. */
+    public static final int QA = 255;
+    /** Quantization scale of the output weights. */
+    public static final int QB = 64;
+    /** Scale from the network output to centipawns. */
+    public static final int SCALE = 400;
+
+    private static final int FILE_MAGIC = 0x4E4E4843; // "CHNN" read little-endian
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+
+    private final int hiddenSize;
+    final short[] featureWeights;
+    final short[] hiddenBias;
+    final short[] outputWeights;
+    final int outputBias;
+
+    private NnueNetwork(int hiddenSize, short[] featureWeights, short[] hiddenBias,
+                        short[] outputWeights, int outputBias) {
+        this.hiddenSize = hiddenSize;
+        this.featureWeights = featureWeights;
+        this.hiddenBias = hiddenBias;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+    }
+
+    /**
+     * Loads a network from a file.
+     *
+     * @param file The network file.
+     * @return The network.
+     * @throws IOException if the file cannot be read or is not a network of this format.
+     */
+    public static NnueNetwork load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header);
+            header.flip();
+            int hidden = header.getInt(8);
+            if (header.getInt(0) != FILE_MAGIC || header.getInt(4) != FORMAT_VERSION
+                    || hidden <= 0 || hidden % 16 != 0 || hidden > 4096) {
+                throw new IOException("Not a network file: " + file);
+            }
+            long expected = HEADER_SIZE + 2L * ((long) FEATURES * hidden + 3L * hidden) + 4;
+            if (channel.size() != expected) {
+                throw new IOException("Network file has " + channel.size() + " bytes, expected " + expected);
+            }
+
+            ByteBuffer body = ByteBuffer.allocate((int) (expected - HEADER_SIZE)).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, body);
+            body.flip();
+            short[] features = new short[FEATURES * hidden];
+            short[] bias = new short[hidden];
+            short[] output = new short[2 * hidden];
+            body.asShortBuffer().get(features).get(bias).get(output);
+            body.position(2 * (features.length + bias.length + output.length));
+            return new NnueNetwork(hidden, features, bias, output, body.getInt());
+        }
+    }
+
+    /**
+     * Writes the network to a file in the format read by {@link #load(Path)}.
+     *
+     * @param file The file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void save(Path file) throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(HEADER_SIZE + 2 * (featureWeights.length + hiddenBias.length
+                + outputWeights.length) + 4).order(ByteOrder.LITTLE_ENDIAN);
+        data.putInt(FILE_MAGIC).putInt(FORMAT_VERSION).putInt(hiddenSize);
+        data.asShortBuffer().put(featureWeights).put(hiddenBias).put(outputWeights);
+        data.position(data.position() + 2 * (featureWeights.length + hiddenBias.length + outputWeights.length));
+        data.putInt(outputBias).flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        }
+    }
+
+    /**
+     * Creates a network with small random weights, for benchmarks and for
+     * testing the evaluator without a trained network. Its evaluations are
+     * meaningless.
+     *
+     * @param hiddenSize The hidden layer size (a multiple of 16).
+     * @param seed The random seed.
+     * @return The network.
+     */
+    public static NnueNetwork random(int hiddenSize, long seed) {
+        if (hiddenSize <= 0 || hiddenSize % 16 != 0) {
+            throw new IllegalArgumentException("Hidden size must be a positive multiple of 16: " + hiddenSize);
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        short[] features = new short[FEATURES * hiddenSize];
+        for (int i = 0; i < features.length; i++) {
+            features[i] = (short) random.nextInt(-32, 33);
+        }
+        short[] bias = new short[hiddenSize];
+        for (int i = 0; i < bias.length; i++) {
+            bias[i] = (short) random.nextInt(0, 64);
+        }
+        short[] output = new short[2 * hiddenSize];
+        for (int i = 0; i < output.length; i++) {
+            output[i] = (short) random.nextInt(-64, 65);
+        }
+        return new NnueNetwork(hiddenSize, features, bias, output, 0);
+    }
+
+    /**
+     * Gets the number of hidden neurons.
+     *
+     * @return The hidden layer size.
+     */
+    public int getHiddenSize() {
+        return hiddenSize;
+    }
+
+    /**
+     * Gets the input index of a piece on a square, seen from one side.
+     * The board is flipped for black so both perspectives share weights.
+     *
+     * @param perspective The side whose accumulator the input belongs to.
+     * @param piece The piece.
+     * @param square The square (row * 8 + col).
+     * @return The feature index (0-767).
+     */
+    static int feature(Color perspective, Piece piece, int square) {
+        int relativeSide = piece.getSide() == perspective ? 0 : 1;
+        int relativeSquare = perspective == Color.WHITE ? square : square ^ 56;
+        return relativeSide * 384 + piece.getType() * 64 + relativeSquare;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Unexpected end of network file");
+            }
+        }
+    }
+}
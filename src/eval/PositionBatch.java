@@ -0,0 +1,112 @@
+package eval;
+
+import board.Board;
+import pieces.Color;
+import pieces.Piece;
+
+/**
+ * A block of positions stored as a structure of arrays, for scoring many
+ * positions at once with {@link BatchEvaluator}.
+ *
+ * Position i is held at index i of twelve bitboard arrays (one per piece
+ * code, bit n = square row * 8 + col) and a side-to-move array. Keeping each
+ * piece's bitboards contiguous lets the evaluator run one tight loop per
+ * piece type over the whole block instead of visiting positions one by one.
+ * Positions can be added from a {@link Board} or straight from the packed
+ * snapshot bytes the board and the position database use, without building
+ * a board.
+ */
+public final class PositionBatch {
+    final long[][] pieces;
+    final byte[] blackToMove;
+    private int size;
+
+    /**
+     * Creates an empty batch.
+     *
+     * @param capacity The maximum number of positions.
+     */
+    public PositionBatch(int capacity) {
+        pieces = new long[Piece.COUNT][capacity];
+        blackToMove = new byte[capacity];
+    }
+
+    /**
+     * Adds the current position of a board.
+     *
+     * @param board The board.
+     * @return The index of the position in the batch.
+     * @throws IllegalStateException if the batch is full.
+     */
+    public int add(Board board) {
+        int index = reserve();
+        for (int code = 0; code < Piece.COUNT; code++) {
+            pieces[code][index] = board.getPieceBitboard(Piece.fromCode(code));
+        }
+        blackToMove[index] = (byte) (board.getSideToMove() == Color.BLACK ? 1 : 0);
+        return index;
+    }
+
+    /**
+     * Adds a position packed by {@link Board#snapshot(byte[], int)}.
+     *
+     * @param data The array holding the packed position.
+     * @param offset The index of its first byte.
+     * @return The index of the position in the batch.
+     * @throws IllegalStateException if the batch is full.
+     * @throws IllegalArgumentException if the data holds an invalid piece code.
+     */
+    public int add(byte[] data, int offset) {
+        if (offset < 0 || data.length - offset < Board.SNAPSHOT_SIZE) {
+            throw new IllegalArgumentException("Snapshot needs " + Board.SNAPSHOT_SIZE + " bytes");
+        }
+        int index = reserve();
+        for (int code = 0; code < Piece.COUNT; code++) {
+            pieces[code][index] = 0L;
+        }
+        for (int square = 0; square < 64; square++) {
+            int nibble = (data[offset + (square >> 1)] >>> ((square & 1) * 4)) & 0x0F;
+            if (nibble > Piece.COUNT) {
+                size--;
+                throw new IllegalArgumentException("Invalid square code in snapshot byte " + (square >> 1));
+            }
+            if (nibble != 0) {
+                pieces[nibble - 1][index] |= 1L << square;
+            }
+        }
+        blackToMove[index] = (byte) (data[offset + 32] & 1);
+        return index;
+    }
+
+    private int reserve() {
+        if (size == blackToMove.length) {
+            throw new IllegalStateException("Position batch is full (" + size + " positions)");
+        }
+        return size++;
+    }
+
+    /**
+     * Gets the number of positions in the batch.
+     *
+     * @return The size.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the maximum number of positions.
+     *
+     * @return The capacity.
+     */
+    public int capacity() {
+        return blackToMove.length;
+    }
+
+    /**
+     * Removes all positions so the batch can be refilled without allocating.
+     */
+    public void clear() {
+        size = 0;
+    }
+}
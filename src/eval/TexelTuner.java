@@ -0,0 +1,431 @@
+package eval;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import board.Board;
+import db.GameResult;
+import pieces.Color;
+import pieces.Piece;
+
+/**
+ * Fits {@link EvalParameters} to labeled positions (Texel tuning).
+ *
+ * Each line of the input file holds a FEN string followed by the result of
+ * the game the position was taken from: a PGN token ("1-0", "0-1",
+ * "1/2-1/2", optionally quoted as in EPD) or a score from white's point of
+ * view ("1.0", "0.5", "0.0", optionally in brackets). Empty lines and lines
+ * starting with '#' are skipped.
+ *
+ * Positions are parsed with {@link Board#loadFen(String)} and kept only as
+ * their pieces: one short per piece (the piece type and its square seen
+ * from its own side, plus a color bit). Positions are stored in chunks of
+ * {@link #CHUNK_SIZE}, each with its own arrays, so no array comes near the
+ * 2^31 element limit however many positions are loaded, and tens of
+ * millions of positions take a few bytes over one short per piece each.
+ *
+ * The tuner maps an evaluation e to an expected score with the logistic
+ * function 1 / (1 + 10^(-K * e / 400)) and minimizes the cross-entropy
+ * between that and the game results. K is fitted once for the starting
+ * parameters. Every pass over the positions (the loss for fitting K, and
+ * the gradients) runs on a fork/join pool with one task per chunk: each
+ * task sums into its own array, and the arrays are added together as the
+ * tasks join, so no thread writes to shared state. The weights are then
+ * updated with Adam.
+ */
+public final class TexelTuner {
+    /** Step size of the weight updates, in centipawns. */
+    public static final double LEARNING_RATE = 1.0;
+
+    /** Number of positions per storage chunk; also the work of one task. */
+    static final int CHUNK_SIZE = 16 * 1024;
+
+    private static final int MAX_PIECES = 32;
+    private static final int BLACK = 1 << 9;
+    private static final int LOG_INTERVAL = 100;
+    private static final double BETA1 = 0.9;
+    private static final double BETA2 = 0.999;
+    private static final double EPSILON = 1e-8;
+    // Keeps the logarithms finite for positions the evaluation is certain about
+    private static final double MIN_PROBABILITY = 1e-12;
+
+    private final List<Chunk> chunks = new ArrayList<>();
+    private long size;
+
+    /**
+     * Up to {@link #CHUNK_SIZE} positions: the features of position i are
+     * features[offsets[i]] to features[offsets[i + 1] - 1].
+     */
+    private static final class Chunk {
+        // At most CHUNK_SIZE * MAX_PIECES shorts, far below the array size limit
+        short[] features = new short[CHUNK_SIZE * 4];
+        final int[] offsets = new int[CHUNK_SIZE + 1];
+        // Results in half points for white: 0 = loss, 1 = draw, 2 = win
+        final byte[] results = new byte[CHUNK_SIZE];
+        int size;
+    }
+
+    private TexelTuner() {
+    }
+
+    /**
+     * Loads labeled positions from a file.
+     *
+     * @param file The file.
+     * @return A tuner holding the positions.
+     * @throws IOException if the file cannot be read or a line is malformed.
+     */
+    public static TexelTuner load(Path file) throws IOException {
+        TexelTuner tuner = new TexelTuner();
+        Board board = new Board();
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    tuner.add(board, line);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(file + " line " + lineNumber + ": " + e.getMessage());
+                }
+            }
+        }
+        return tuner;
+    }
+
+    /**
+     * Parses one line and stores its position and result.
+     */
+    private void add(Board board, String line) {
+        String[] tokens = line.split("[\\s;]+");
+        // Placement, side, castling and en passant, then the optional move counters
+        int fenFields = 4;
+        while (fenFields < Math.min(tokens.length - 1, 6) && isNumber(tokens[fenFields])) {
+            fenFields++;
+        }
+        int result = -1;
+        for (int i = fenFields; i < tokens.length && result < 0; i++) {
+            result = parseResult(tokens[i]);
+        }
+        if (tokens.length <= fenFields || result < 0) {
+            throw new IllegalArgumentException("No game result after the FEN");
+        }
+        board.loadFen(String.join(" ", Arrays.copyOf(tokens, fenFields)));
+        if (Long.bitCount(board.getOccupancy(Color.WHITE) | board.getOccupancy(Color.BLACK)) > MAX_PIECES) {
+            throw new IllegalArgumentException("More than " + MAX_PIECES + " pieces on the board");
+        }
+
+        Chunk chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (chunk == null || chunk.size == CHUNK_SIZE) {
+            chunk = new Chunk();
+            chunks.add(chunk);
+        }
+        int count = chunk.offsets[chunk.size];
+        if (count + MAX_PIECES > chunk.features.length) {
+            chunk.features = Arrays.copyOf(chunk.features,
+                                           Math.min(chunk.features.length * 2, CHUNK_SIZE * MAX_PIECES));
+        }
+        for (int code = 0; code < Piece.COUNT; code++) {
+            Piece piece = Piece.fromCode(code);
+            boolean black = piece.getSide() == Color.BLACK;
+            for (long squares = board.getPieceBitboard(piece); squares != 0; squares &= squares - 1) {
+                int square = Long.numberOfTrailingZeros(squares);
+                int feature = piece.getType() * 64 + (black ? square ^ 56 : square);
+                chunk.features[count++] = (short) (black ? feature | BLACK : feature);
+            }
+        }
+        chunk.results[chunk.size++] = (byte) result;
+        chunk.offsets[chunk.size] = count;
+        size++;
+    }
+
+    private static boolean isNumber(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (!Character.isDigit(token.charAt(i))) {
+                return false;
+            }
+        }
+        return !token.isEmpty();
+    }
+
+    /**
+     * Parses a result token.
+     *
+     * @return The result in half points for white, or -1 if the token is not a result.
+     */
+    private static int parseResult(String token) {
+        int start = 0;
+        int end = token.length();
+        while (start < end && "\"[(".indexOf(token.charAt(start)) >= 0) {
+            start++;
+        }
+        while (end > start && "\"])".indexOf(token.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        GameResult result = GameResult.fromToken(token, start, end);
+        if (result != null) {
+            switch (result) {
+                case WHITE_WINS:
+                    return 2;
+                case DRAW:
+                    return 1;
+                default:
+                    return 0;
+            }
+        }
+        switch (token.substring(start, end)) {
+            case "1.0":
+            case "1":
+                return 2;
+            case "0.5":
+                return 1;
+            case "0.0":
+            case "0":
+                return 0;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Gets the number of positions loaded.
+     *
+     * @return The number of positions.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Computes the mean cross-entropy loss of a set of parameters on the
+     * common fork/join pool.
+     *
+     * @param parameters The parameters.
+     * @param k The scaling constant K.
+     * @return The loss.
+     */
+    public double loss(EvalParameters parameters, double k) {
+        return loss(parameters, k, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes the mean cross-entropy loss of a set of parameters.
+     *
+     * @param parameters The parameters.
+     * @param k The scaling constant K.
+     * @param pool The pool to compute on.
+     * @return The loss.
+     */
+    public double loss(EvalParameters parameters, double k, ForkJoinPool pool) {
+        return loss(parameters.getWeights(), k, pool);
+    }
+
+    private double loss(double[] weights, double k, ForkJoinPool pool) {
+        double[] sums = pool.invoke(new PassTask(this, weights, k * Math.log(10) / 400, false, 0, chunks.size()));
+        return sums[0] / size;
+    }
+
+    /**
+     * Finds the scaling constant K that minimizes the loss of a set of
+     * parameters on the common fork/join pool.
+     *
+     * @param parameters The parameters.
+     * @return K.
+     */
+    public double fitScale(EvalParameters parameters) {
+        return fitScale(parameters, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Finds the scaling constant K that minimizes the loss of a set of
+     * parameters, by ternary search between 0.1 and 4.
+     *
+     * @param parameters The parameters.
+     * @param pool The pool to compute the losses on.
+     * @return K.
+     */
+    public double fitScale(EvalParameters parameters, ForkJoinPool pool) {
+        double[] weights = parameters.getWeights();
+        double low = 0.1;
+        double high = 4.0;
+        while (high - low > 1e-4) {
+            double a = low + (high - low) / 3;
+            double b = high - (high - low) / 3;
+            if (loss(weights, a, pool) < loss(weights, b, pool)) {
+                high = b;
+            } else {
+                low = a;
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    /**
+     * Tunes parameters on the common fork/join pool.
+     *
+     * @param start The parameters to start from.
+     * @param iterations The number of gradient steps.
+     * @param out Where to print progress.
+     * @return The tuned parameters.
+     */
+    public EvalParameters tune(EvalParameters start, int iterations, PrintStream out) {
+        return tune(start, iterations, out, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Tunes parameters by gradient descent on the logistic loss. The king's
+     * material value is kept fixed, since every position has exactly one
+     * king per side and it cancels out.
+     *
+     * @param start The parameters to start from.
+     * @param iterations The number of gradient steps.
+     * @param out Where to print progress.
+     * @param pool The pool to compute gradients on.
+     * @return The tuned parameters.
+     */
+    public EvalParameters tune(EvalParameters start, int iterations, PrintStream out, ForkJoinPool pool) {
+        if (size == 0) {
+            throw new IllegalStateException("No positions to tune on");
+        }
+        double k = fitScale(start, pool);
+        double scale = k * Math.log(10) / 400;
+        out.printf("Tuning %d parameters on %d positions, K = %.4f%n", EvalParameters.COUNT, size, k);
+
+        double[] weights = start.getWeights();
+        double[] momentum = new double[EvalParameters.COUNT];
+        double[] velocity = new double[EvalParameters.COUNT];
+        int frozen = EvalParameters.materialIndex(Piece.KING);
+        for (int iteration = 1; iteration <= iterations; iteration++) {
+            double[] gradient = pool.invoke(new PassTask(this, weights, scale, true, 0, chunks.size()));
+            if (iteration == 1 || iteration % LOG_INTERVAL == 0 || iteration == iterations) {
+                // The loss was computed with the weights before this step
+                out.printf("  iteration %d: loss %.6f%n", iteration, gradient[0] / size);
+            }
+            double correction1 = 1 - Math.pow(BETA1, iteration);
+            double correction2 = 1 - Math.pow(BETA2, iteration);
+            for (int i = 0; i < EvalParameters.COUNT; i++) {
+                if (i == frozen) {
+                    continue;
+                }
+                double g = gradient[i + 1] / size;
+                momentum[i] = BETA1 * momentum[i] + (1 - BETA1) * g;
+                velocity[i] = BETA2 * velocity[i] + (1 - BETA2) * g * g;
+                weights[i] -= LEARNING_RATE * (momentum[i] / correction1)
+                              / (Math.sqrt(velocity[i] / correction2) + EPSILON);
+            }
+        }
+        out.printf("Final loss %.6f%n", loss(weights, k, pool));
+        return new EvalParameters(weights);
+    }
+
+    /**
+     * Adds the summed loss of a chunk's positions to sums[0] and, if asked,
+     * the gradient of the loss to sums[1 + parameter index].
+     */
+    private static void accumulate(Chunk chunk, double[] weights, double scale, boolean gradient, double[] sums) {
+        short[] features = chunk.features;
+        int[] offsets = chunk.offsets;
+        double loss = 0;
+        for (int i = 0; i < chunk.size; i++) {
+            double probability = sigmoid(scale * evaluate(weights, features, offsets[i], offsets[i + 1]));
+            double result = chunk.results[i] * 0.5;
+            loss += positionLoss(probability, result);
+            if (!gradient) {
+                continue;
+            }
+            // Derivative of the cross-entropy with respect to the evaluation
+            double slope = (probability - result) * scale;
+            for (int f = offsets[i]; f < offsets[i + 1]; f++) {
+                int feature = features[f];
+                double signed = (feature & BLACK) != 0 ? -slope : slope;
+                int index = feature & (BLACK - 1);
+                sums[1 + EvalParameters.materialIndex(index >> 6)] += signed;
+                sums[1 + EvalParameters.pieceSquareIndex(index >> 6, index & 63)] += signed;
+            }
+        }
+        sums[0] += loss;
+    }
+
+    /**
+     * Evaluates a stored position from white's point of view.
+     */
+    private static double evaluate(double[] weights, short[] features, int start, int end) {
+        double score = 0;
+        for (int f = start; f < end; f++) {
+            int feature = features[f];
+            int index = feature & (BLACK - 1);
+            double term = weights[EvalParameters.materialIndex(index >> 6)]
+                          + weights[EvalParameters.pieceSquareIndex(index >> 6, index & 63)];
+            score += (feature & BLACK) != 0 ? -term : term;
+        }
+        return score;
+    }
+
+    private static double sigmoid(double x) {
+        return 1 / (1 + Math.exp(-x));
+    }
+
+    private static double positionLoss(double probability, double result) {
+        double p = Math.min(Math.max(probability, MIN_PROBABILITY), 1 - MIN_PROBABILITY);
+        return -(result * Math.log(p) + (1 - result) * Math.log(1 - p));
+    }
+
+    /**
+     * Computes the summed loss, and optionally the gradient, of a range of
+     * chunks into its own array, splitting the range in halves down to
+     * single chunks and adding the halves' arrays on join.
+     */
+    private static final class PassTask extends RecursiveTask<double[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient TexelTuner tuner;
+        private final double[] weights;
+        private final double scale;
+        private final boolean gradient;
+        private final int start;
+        private final int end;
+
+        PassTask(TexelTuner tuner, double[] weights, double scale, boolean gradient, int start, int end) {
+            this.tuner = tuner;
+            this.weights = weights;
+            this.scale = scale;
+            this.gradient = gradient;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (end - start <= 1) {
+                // The loss, then the gradient of every parameter
+                double[] sums = new double[gradient ? 1 + EvalParameters.COUNT : 1];
+                if (start < end) {
+                    accumulate(tuner.chunks.get(start), weights, scale, gradient, sums);
+                }
+                return sums;
+            }
+            int middle = (start + end) >>> 1;
+            PassTask right = new PassTask(tuner, weights, scale, gradient, middle, end);
+            right.fork();
+            double[] sums = new PassTask(tuner, weights, scale, gradient, start, middle).compute();
+            double[] other = right.join();
+            for (int i = 0; i < sums.length; i++) {
+                sums[i] += other[i];
+            }
+            return sums;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package game;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+import board.Board;
+import board.Move;
+import board.MoveParser;
+import board.MoveResult;
+import db.GameResult;
+import db.PositionDatabase;
+import metrics.ComputationEvent;
+
+/**
+ * Non-interactive game validator.
+ * Reads one game per line (moves separated by whitespace, in any format
+ * accepted by {@link MoveParser}; PGN move numbers such as "12." and result
+ * tokens such as "1-0" are skipped), applies the moves without rendering
+ * and writes one result line per game:
+ *
+ *   game-number move-count illegal-move-index final-FEN
+ *
+ * The illegal-move index is the 1-based position of the first move that
+ * could not be parsed or applied (processing of that game stops there),
+ * or "-" if every move was applied. Blank lines and lines starting with
+ * '#' are ignored.
+ *
+ * If a position database is set, every fully valid game that ends with a
+ * result token is also added to it.
+ */
+public class BatchRunner {
+    private final Board board;
+    private int gamesProcessed;
+    private int gamesWithIllegalMoves;
+
+    private PositionDatabase positions;
+    private long[] gameHashes = new long[256];
+    private int[] gameMoves = new int[256];
+
+    /**
+     * Creates a batch runner with its own board.
+     */
+    public BatchRunner() {
+        this.board = new Board();
+    }
+
+    /**
+     * Sets the database that valid, finished games are recorded in.
+     *
+     * @param positions The database (opened for writing), or null to record nothing.
+     */
+    public void setPositionDatabase(PositionDatabase positions) {
+        this.positions = positions;
+    }
+
+    /**
+     * Processes every game from the reader.
+     *
+     * @param in The source of games, one per line.
+     * @param out The destination of result lines.
+     * @throws IOException if reading the input fails.
+     */
+    public void run(BufferedReader in, PrintWriter out) throws IOException {
+        ComputationEvent event = new ComputationEvent("batch validation");
+        int gamesBefore = gamesProcessed;
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.isBlank() || line.charAt(0) == '#') {
+                continue;
+            }
+            processGame(line, out);
+        }
+        out.flush();
+        event.finish(gamesProcessed - gamesBefore);
+    }
+
+    /**
+     * Replays one game and writes its result line.
+     *
+     * @param line The moves of the game.
+     * @param out The destination of the result line.
+     */
+    private void processGame(String line, PrintWriter out) {
+        board.reset();
+        gamesProcessed++;
+
+        int moveCount = 0;
+        int illegalIndex = 0;
+        GameResult result = null;
+        int length = line.length();
+        int i = 0;
+        while (i < length) {
+            // Find the next whitespace-separated token
+            while (i < length && Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && !Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            // A move number may stand alone ("1.", "23...") or be glued to its move ("1.e4")
+            start = skipMoveNumber(line, start, i);
+            if (start == i) {
+                continue;
+            }
+            if (isSkippedToken(line, start, i)) {
+                if (result == null) {
+                    result = GameResult.fromToken(line, start, i);
+                }
+                continue;
+            }
+
+            long hash = board.getHash();
+            int move = MoveParser.parse(line, start, i, board);
+            if (move == Move.NONE || board.applyMove(move) != MoveResult.OK) {
+                illegalIndex = moveCount + 1;
+                break;
+            }
+            if (positions != null) {
+                addPosition(moveCount, hash, move);
+            }
+            moveCount++;
+        }
+
+        if (illegalIndex > 0) {
+            gamesWithIllegalMoves++;
+        } else if (positions != null && result != null) {
+            addPosition(moveCount, board.getHash(), Move.NONE);
+            positions.recordGame(gameHashes, gameMoves, moveCount + 1, result);
+        }
+        out.print(gamesProcessed);
+        out.print(' ');
+        out.print(moveCount);
+        out.print(' ');
+        if (illegalIndex > 0) {
+            out.print(illegalIndex);
+        } else {
+            out.print('-');
+        }
+        out.print(' ');
+        out.println(board.toFen());
+    }
+
+    /**
+     * Stores the hash of a position reached in the current game and the move played from it.
+     */
+    private void addPosition(int index, long hash, int move) {
+        if (index == gameHashes.length) {
+            gameHashes = Arrays.copyOf(gameHashes, index * 2);
+            gameMoves = Arrays.copyOf(gameMoves, index * 2);
+        }
+        gameHashes[index] = hash;
+        gameMoves[index] = move;
+    }
+
+    /**
+     * Skips a move number prefix: digits followed by one or more dots.
+     *
+     * @return The index after the prefix, or start if the token does not begin with one.
+     */
+    private static int skipMoveNumber(String line, int start, int end) {
+        int i = start;
+        while (i < end && line.charAt(i) >= '0' && line.charAt(i) <= '9') {
+            i++;
+        }
+        if (i == start || i == end || line.charAt(i) != '.') {
+            return start;
+        }
+        while (i < end && line.charAt(i) == '.') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Checks for tokens that are not moves: game results.
+     */
+    private static boolean isSkippedToken(String line, int start, int end) {
+        // The whole token must be the result, not just start with one
+        return GameResult.fromToken(line, start, end) != null || (end - start == 1 && line.charAt(start) == '*');
+    }
+
+    /**
+     * Gets the number of games processed so far.
+     *
+     * @return The game count.
+     */
+    public int getGamesProcessed() {
+        return gamesProcessed;
+    }
+
+    /**
+     * Gets the number of games that contained an illegal or unreadable move.
+     *
+     * @return The count of rejected games.
+     */
+    public int getGamesWithIllegalMoves() {
+        return gamesWithIllegalMoves;
+    }
+}
@@ -1,11 +1,25 @@
 package game;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Scanner;
 import board.Board;
+import board.ConsoleRenderer;
+import board.DrawReason;
+import board.Move;
+import board.MoveListener;
+import board.MoveParser;
+import eval.NnueEvaluator;
+import eval.NnueNetwork;
+import metrics.Metrics;
+import pieces.Color;
+import utils.Square;
 
 /**
  * Main game class that manages the chess game flow.
  * Handles user input, game initialization, and the main game loop.
+ * The game learns that it is over from a move listener on the board, which
+ * checks for a captured king or a draw by rule right after every move.
  */
 public class Game {
     private Board board;
@@ -13,16 +27,73 @@ public class Game {
     private Player blackPlayer;
     private Scanner scanner;
     private boolean gameRunning;
+    private ConsoleRenderer renderer;
+    private GameJournal journal;
+    private SpectatorHub spectators;
+    private NnueEvaluator evaluator;
+    // Set by GameEndListener when a move ends the game
+    private Color winner;
+    private DrawReason drawReason;
 
     /**
      * Initializes a new chess game with board and players.
      */
     public Game() {
         this.board = new Board();
-        this.whitePlayer = new Player("white");
-        this.blackPlayer = new Player("black");
+        this.whitePlayer = new Player(board, Color.WHITE);
+        this.blackPlayer = new Player(board, Color.BLACK);
         this.scanner = new Scanner(System.in);
         this.gameRunning = false;
+        this.renderer = new ConsoleRenderer(System.out, false);
+        board.addMoveListener(new GameEndListener());
+        Metrics.watch(board);
+    }
+
+    /**
+     * Switches between full redraws and ANSI redraws of only the changed squares.
+     *
+     * @param ansi true to use ANSI escape sequences when redrawing the board.
+     */
+    public void setAnsiMode(boolean ansi) {
+        this.renderer = new ConsoleRenderer(System.out, ansi);
+    }
+
+    /**
+     * Records every move in a journal file, first replaying any moves already
+     * in it so a game interrupted by a crash continues where it stopped.
+     *
+     * @param file The journal file.
+     * @param fsyncIntervalMillis Time between group commits, or 0 to fsync every move.
+     * @throws IOException if the journal cannot be opened.
+     */
+    public void openJournal(Path file, long fsyncIntervalMillis) throws IOException {
+        journal = GameJournal.open(file, board, fsyncIntervalMillis);
+        if (journal.getRecoveredMoves() > 0) {
+            System.out.println("Recovered " + journal.getRecoveredMoves() + " moves from " + file);
+        }
+    }
+
+    /**
+     * Lets spectators watch the game by connecting to a TCP port.
+     *
+     * @param port The port to listen on.
+     * @throws IOException if the port cannot be opened.
+     */
+    public void openSpectatorHub(int port) throws IOException {
+        spectators = SpectatorHub.listen(board, port, SpectatorHub.DEFAULT_FLUSH_INTERVAL_MILLIS);
+        System.out.println("Spectators can connect on port " + spectators.getPort());
+    }
+
+    /**
+     * Enables the "eval" command, which scores the position with a neural network.
+     *
+     * @param network The network to evaluate with.
+     */
+    public void setNetwork(NnueNetwork network) {
+        if (evaluator != null) {
+            evaluator.close();
+        }
+        evaluator = new NnueEvaluator(network, board);
     }
 
     /**
@@ -30,11 +101,12 @@ public class Game {
      */
     public void start() {
         System.out.println("=== WELCOME TO CONSOLE CHESS ===");
-        System.out.println("Enter moves in format: FROM TO (e.g., E2 E4)");
+        System.out.println("Enter moves in format: FROM TO (e.g., E2 E4), or as e2e4 / Nf3");
         System.out.println("Type 'help' for commands, 'quit' to exit");
         System.out.println("=====================================\n");
         
-        gameRunning = true;
+        // A game recovered from the journal may already be over
+        gameRunning = winner == null && drawReason == null;
         play();
     }
 
@@ -43,27 +115,36 @@ public class Game {
      */
     public void play() {
         while (gameRunning) {
-            // Update player piece lists
-            whitePlayer.updateAvailablePieces(board.getBoard());
-            blackPlayer.updateAvailablePieces(board.getBoard());
-            
             // Display current board state
-            board.display();
+            renderer.render(board);
             
             // Get current player
-            Player currentPlayer = board.getCurrentPlayer().equals("white") ? whitePlayer : blackPlayer;
+            Player currentPlayer = board.getSideToMove() == Color.WHITE ? whitePlayer : blackPlayer;
             
             // Prompt for user input
             System.out.print(currentPlayer.getColor().toUpperCase() + "'s turn - Enter move: ");
             String input = scanner.nextLine().trim();
 
             // Process the input
-            if (!processInput(input)) {
+            long start = Metrics.ENABLED ? System.nanoTime() : 0L;
+            boolean processed = processInput(input);
+            if (Metrics.ENABLED) {
+                Metrics.INPUT.record(System.nanoTime() - start);
+            }
+            if (!processed) {
                 // If input processing failed, continue to next iteration
                 continue;
             }
         }
-        
+
+        if (winner != null || drawReason != null) {
+            renderer.render(board);
+            if (winner != null) {
+                System.out.println(winner.getName().toUpperCase() + " wins by capturing the king!");
+            } else {
+                System.out.println("Game drawn by " + drawReason.getDescription() + ".");
+            }
+        }
         end();
     }
 
@@ -71,6 +152,23 @@ public class Game {
      * Ends the game and cleans up resources.
      */
     public void end() {
+        renderer.finish();
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.out.println("Could not close game journal: " + e.getMessage());
+            }
+            journal = null;
+        }
+        if (spectators != null) {
+            try {
+                spectators.close();
+            } catch (IOException e) {
+                System.out.println("Could not close spectator hub: " + e.getMessage());
+            }
+            spectators = null;
+        }
         System.out.println("Thanks for playing!");
         scanner.close();
     }
@@ -113,6 +211,19 @@ public class Game {
             case "status":
                 displayGameStatus();
                 return false;
+
+            case "stats":
+                System.out.println(Metrics.getInstance().getReport());
+                return false;
+
+            case "eval":
+                if (evaluator == null) {
+                    System.out.println("No evaluation network loaded (start with --nnue FILE).");
+                } else {
+                    System.out.printf("Evaluation: %+.2f for %s%n", evaluator.evaluate() / 100.0,
+                                      board.getCurrentPlayer().toUpperCase());
+                }
+                return false;
                 
             default:
                 // Try to process as a chess move
@@ -123,52 +234,33 @@ public class Game {
     /**
      * Processes a chess move input in standard notation.
      *
-     * @param input The move input string (e.g., "E2 E4").
+     * @param input The move input string (e.g., "E2 E4", "e2e4" or "Nf3").
      * @return true if the move was processed successfully, false otherwise.
      */
     private boolean processMove(String input) {
-        // Basic format validation using regex
-        if (!input.matches("^[A-Ha-h][1-8]\\s+[A-Ha-h][1-8]$")) {
-            System.out.println("Invalid move format. Use format: FROM TO (e.g., E2 E4)");
+        int move = MoveParser.parse(input, board);
+        if (move == Move.NONE) {
+            System.out.println("Invalid move format. Use FROM TO (e.g., E2 E4), UCI (e.g., e2e4) or SAN (e.g., Nf3).");
             return false;
         }
 
-        // Parse the move
-        String[] parts = input.split("\\s+");
-        if (parts.length != 2) {
-            System.out.println("Invalid move format. Use format: FROM TO (e.g., E2 E4)");
-            return false;
-        }
-
-        String fromSquare = parts[0].toUpperCase();
-        String toSquare = parts[1].toUpperCase();
-
-        // Convert notation to coordinates
-        int[] fromCoords = Board.notationToCoords(fromSquare);
-        int[] toCoords = Board.notationToCoords(toSquare);
-
-        if (fromCoords == null || toCoords == null) {
-            System.out.println("Invalid square notation. Use A1-H8 format.");
-            return false;
-        }
-
-        int fromRow = fromCoords[0];
-        int fromCol = fromCoords[1];
-        int toRow = toCoords[0];
-        int toCol = toCoords[1];
+        int from = Move.from(move);
+        int to = Move.to(move);
 
         // Validate that the move is different positions
-        if (fromRow == toRow && fromCol == toCol) {
+        if (from == to) {
             System.out.println("Source and destination squares cannot be the same.");
             return false;
         }
 
         // Attempt to make the move
-        boolean moveSuccess = board.movePiece(fromRow, fromCol, toRow, toCol);
+        boolean moveSuccess = board.movePiece(move);
         
         if (moveSuccess) {
-            System.out.println("Move executed: " + fromSquare + " to " + toSquare);
-            // Check for game ending conditions could be added here
+            System.out.println("Move executed: " + Square.name(from) + " to " + Square.name(to));
+            if (gameRunning && board.isInCheck(board.getSideToMove())) {
+                System.out.println(board.getCurrentPlayer().toUpperCase() + "'s king is under attack!");
+            }
         } else {
             System.out.println("Invalid move. Try again.");
         }
@@ -200,6 +292,8 @@ public class Game {
         System.out.println("  reset       - Reset the board to starting position");
         System.out.println("  display     - Redisplay the current board");
         System.out.println("  status      - Show game status");
+        System.out.println("  stats       - Show performance metrics (start with --metrics)");
+        System.out.println("  eval        - Evaluate the position (start with --nnue FILE)");
         System.out.println("  quit/exit   - Exit the game");
         System.out.println();
         System.out.println("Move Format:");
@@ -207,6 +301,7 @@ public class Game {
         System.out.println("  - Files (columns): A, B, C, D, E, F, G, H");
         System.out.println("  - Ranks (rows): 1, 2, 3, 4, 5, 6, 7, 8");
         System.out.println("  - Example: E2 E4 (move piece from E2 to E4)");
+        System.out.println("  - UCI (e2e4, e7e8q) and SAN (Nf3, exd5, O-O, e8=Q) are also accepted");
         System.out.println();
         System.out.println("Piece Symbols:");
         System.out.println("  - wp/bp = White/Black Pawn");
@@ -260,5 +355,25 @@ public class Game {
     public void stopGame() {
         gameRunning = false;
     }
+
+    /**
+     * Stops the game loop when a move captures a king or draws by rule.
+     */
+    private class GameEndListener implements MoveListener {
+        @Override
+        public void moveApplied(int move) {
+            winner = board.getWinner();
+            drawReason = winner == null ? board.getDrawReason() : null;
+            if (winner != null || drawReason != null) {
+                gameRunning = false;
+            }
+        }
+
+        @Override
+        public void boardReset() {
+            winner = null;
+            drawReason = null;
+        }
+    }
 }
 
@@ -0,0 +1,312 @@
+package game;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import board.Board;
+import board.MoveListener;
+import board.MoveResult;
+import metrics.ComputationEvent;
+
+/**
+ * Append-only journal of the moves applied to a board, used to recover a
+ * game after a crash.
+ *
+ * Every applied move (and every reset) becomes a fixed-size 8-byte record:
+ * the packed move followed by a check value mixing in the record's sequence
+ * number, so a torn or stale tail is detected on recovery. Records are
+ * buffered in memory and written through a FileChannel with group commit: a
+ * background thread writes and fsyncs everything pending once per fsync
+ * interval, so moves never wait for the disk. A crash can lose at most the
+ * moves of the last interval. An interval of 0 writes and fsyncs each
+ * record before the move returns.
+ *
+ * A failed write leaves the file with an unknown tail, so the journal then
+ * stops: the failure is reported once and later moves are no longer
+ * recorded. The same happens if the file is closed underneath it, for
+ * example when the flusher thread is interrupted mid-write.
+ */
+public class GameJournal implements MoveListener, Closeable {
+    /** Default time between group commits. */
+    public static final long DEFAULT_FSYNC_INTERVAL_MILLIS = 50;
+
+    private static final int FILE_MAGIC = 0x43484a31; // "CHJ1"
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 8;
+    private static final int RESET_RECORD = -1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Board board;
+    private final FileChannel channel;
+    private final long fsyncIntervalMillis;
+    private final ScheduledExecutorService flusher;
+    private final Thread shutdownHook;
+
+    // Records are appended to pending; a flush swaps it with writing and writes that out
+    private final Object bufferLock = new Object();
+    private final Object writeLock = new Object();
+    private ByteBuffer pending = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private ByteBuffer writing = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private long nextSequence;
+    private int recoveredMoves;
+    private volatile boolean failed;
+
+    private GameJournal(Board board, FileChannel channel, long fsyncIntervalMillis, long nextSequence) {
+        this.board = board;
+        this.channel = channel;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+        this.nextSequence = nextSequence;
+
+        if (fsyncIntervalMillis > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "game-journal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly, fsyncIntervalMillis,
+                                           fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+
+        // Commit whatever is pending if the JVM exits without close() (e.g. the GUI window is closed)
+        shutdownHook = new Thread(this::flushQuietly, "game-journal-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Opens (or creates) a journal, replays its records onto the board and
+     * starts journaling further moves made on it.
+     *
+     * @param file The journal file.
+     * @param board The board to restore and record; it is reset first.
+     * @param fsyncIntervalMillis Time between group commits, or 0 to fsync every move.
+     * @return The open journal.
+     * @throws IOException if the file cannot be read or written, or is not a journal.
+     */
+    public static GameJournal open(Path file, Board board, long fsyncIntervalMillis) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                               StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            board.reset();
+            long records = 0;
+            int movesReplayed = 0;
+
+            if (channel.size() < HEADER_SIZE) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(FILE_MAGIC).putInt(RECORD_SIZE).putLong(0L).flip();
+                channel.truncate(0);
+                writeFully(channel, header, 0);
+                channel.force(true);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                readFully(channel, header, 0);
+                if (header.getInt(0) != FILE_MAGIC || header.getInt(4) != RECORD_SIZE) {
+                    throw new IOException("Not a game journal: " + file);
+                }
+
+                // Replay records until the end or the first torn/invalid one
+                ByteBuffer body = ByteBuffer.allocate((int) (channel.size() - HEADER_SIZE));
+                readFully(channel, body, HEADER_SIZE);
+                body.flip();
+                while (body.remaining() >= RECORD_SIZE) {
+                    int payload = body.getInt();
+                    int check = body.getInt();
+                    if (check != checkValue(records, payload)) {
+                        break;
+                    }
+                    if (payload == RESET_RECORD) {
+                        board.reset();
+                        movesReplayed = 0;
+                    } else if (board.applyMove(payload) == MoveResult.OK) {
+                        movesReplayed++;
+                    } else {
+                        break;
+                    }
+                    records++;
+                }
+                // Drop anything after the last valid record
+                channel.truncate(HEADER_SIZE + records * RECORD_SIZE);
+            }
+            channel.position(HEADER_SIZE + records * RECORD_SIZE);
+
+            GameJournal journal = new GameJournal(board, channel, fsyncIntervalMillis, records);
+            journal.recoveredMoves = movesReplayed;
+            board.addMoveListener(journal);
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the number of moves replayed onto the board when the journal was opened.
+     *
+     * @return The number of recovered moves since the last reset.
+     */
+    public int getRecoveredMoves() {
+        return recoveredMoves;
+    }
+
+    /**
+     * Gets the time between group commits.
+     *
+     * @return The fsync interval in milliseconds (0 means every move).
+     */
+    public long getFsyncIntervalMillis() {
+        return fsyncIntervalMillis;
+    }
+
+    @Override
+    public void moveApplied(int move) {
+        append(move);
+    }
+
+    @Override
+    public void boardReset() {
+        append(RESET_RECORD);
+    }
+
+    /**
+     * Adds a record to the pending buffer, flushing first if it is full.
+     */
+    private void append(int payload) {
+        while (true) {
+            synchronized (bufferLock) {
+                if (failed || !channel.isOpen()) {
+                    // Nothing will ever drain the buffer again; drop the record instead of waiting
+                    fail("Game journal is closed; moves are no longer recorded");
+                    return;
+                }
+                if (pending.remaining() >= RECORD_SIZE) {
+                    pending.putInt(payload).putInt(checkValue(nextSequence++, payload));
+                    break;
+                }
+            }
+            flushQuietly();
+        }
+        if (flusher == null) {
+            flushQuietly();
+        }
+    }
+
+    /**
+     * Writes all pending records to the file and forces them to disk.
+     *
+     * @throws IOException if writing fails now or failed before.
+     */
+    public void flush() throws IOException {
+        synchronized (writeLock) {
+            if (failed) {
+                throw new IOException("Game journal stopped after an earlier write failure");
+            }
+            synchronized (bufferLock) {
+                ByteBuffer swap = pending;
+                pending = writing;
+                writing = swap;
+            }
+            writing.flip();
+            if (!writing.hasRemaining()) {
+                writing.clear();
+                return;
+            }
+            ComputationEvent event = new ComputationEvent("game journal flush");
+            int records = writing.remaining() / RECORD_SIZE;
+            try {
+                while (writing.hasRemaining()) {
+                    channel.write(writing);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                fail("Game journal write failed: " + e.getMessage());
+                throw e;
+            } finally {
+                // Never swap unwritten records back in as pending; after a failure they are dropped
+                writing.clear();
+            }
+            event.finish(records);
+        }
+    }
+
+    /**
+     * Flushes, reporting the first failure instead of throwing (used from callbacks and timers).
+     */
+    private void flushQuietly() {
+        try {
+            if (channel.isOpen() && !failed) {
+                flush();
+            }
+        } catch (IOException e) {
+            fail("Game journal write failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the journal, reporting only the first reason.
+     */
+    private void fail(String message) {
+        synchronized (bufferLock) {
+            if (!failed) {
+                failed = true;
+                System.err.println(message);
+            }
+        }
+    }
+
+    /**
+     * Stops journaling, commits pending records and closes the file.
+     *
+     * @throws IOException if the final flush or close fails.
+     */
+    @Override
+    public void close() throws IOException {
+        board.removeMoveListener(this);
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // Already shutting down; the hook will run anyway
+        }
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Computes the check value stored with a record.
+     *
+     * @param sequence The record's position in the journal.
+     * @param payload The record payload.
+     * @return The check value.
+     */
+    private static int checkValue(long sequence, int payload) {
+        int mixed = (int) (sequence * 0x9E3779B97F4A7C15L >>> 32);
+        return Integer.rotateLeft(payload, 13) ^ mixed ^ 0x5A17C0DE;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of journal");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+}
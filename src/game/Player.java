@@ -1,84 +1,110 @@
 package game;
 
+import board.Board;
+import pieces.Color;
 import pieces.Piece;
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.List;
 
 /**
  * Represents a player in the chess game.
- * Tracks the player's color and available pieces.
+ * Tracks the player's color and gives views of the player's pieces on the
+ * board and the pieces they captured. The board maintains both lists as
+ * moves are made, so the views are always current and nothing is rebuilt.
  */
 public class Player {
-    private String color;
-    private List<Piece> availablePieces;
-    private List<Piece> capturedPieces;
+    private final Board board;
+    private final Color color;
+    private final List<Piece> availablePieces;
+    private final List<Piece> capturedPieces;
 
     /**
      * Constructs a new player with the specified color.
      *
+     * @param board The board the player plays on.
      * @param color The color of the player ("white" or "black").
      */
-    public Player(String color) {
-        this.color = color;
-        this.availablePieces = new ArrayList<>();
-        this.capturedPieces = new ArrayList<>();
+    public Player(Board board, String color) {
+        this(board, Color.fromString(color));
     }
 
     /**
-     * Gets the color of this player.
+     * Constructs a new player for the specified side.
      *
-     * @return The player's color ("white" or "black").
+     * @param board The board the player plays on.
+     * @param color The color of the player.
      */
-    public String getColor() {
-        return color;
+    public Player(Board board, Color color) {
+        this.board = board;
+        this.color = color;
+        this.availablePieces = new AbstractList<Piece>() {
+            @Override
+            public Piece get(int index) {
+                return board.getPiece(board.getPieceSquare(color, index));
+            }
+
+            @Override
+            public int size() {
+                return board.getPieceListSize(color);
+            }
+        };
+        this.capturedPieces = new AbstractList<Piece>() {
+            @Override
+            public Piece get(int index) {
+                return board.getCapturedPiece(color, index);
+            }
+
+            @Override
+            public int size() {
+                return board.getCapturedCount(color);
+            }
+        };
     }
 
     /**
-     * Gets the list of available pieces for this player.
+     * Gets the color of this player.
      *
-     * @return A list of pieces that are still on the board.
+     * @return The player's color ("white" or "black").
      */
-    public List<Piece> getAvailablePieces() {
-        return new ArrayList<>(availablePieces);
+    public String getColor() {
+        return color.getName();
     }
+
     /**
-     * Gets the list of captured pieces from the opponent.
+     * Gets the side this player plays.
      *
-     * @return A list of pieces that this player has captured.
+     * @return The player's color.
      */
-    public List<Piece> getCapturedPieces() {
-        return new ArrayList<>(capturedPieces);
+    public Color getSide() {
+        return color;
     }
 
     /**
-     * Adds a piece to the player's available pieces.
+     * Gets the player's pieces that are still on the board.
      *
-     * @param piece The piece to add.
+     * @return A read-only live view of the pieces, in no particular order.
      */
-    public void addPiece(Piece piece) {
-        if (piece != null && piece.getColor().equals(color)) {
-            availablePieces.add(piece);
-        }
+    public List<Piece> getAvailablePieces() {
+        return availablePieces;
     }
 
     /**
-     * Removes a piece from the player's available pieces (when captured).
+     * Gets the squares of the player's pieces, for iterating without scanning the board.
      *
-     * @param piece The piece to remove.
+     * @param index The position in the piece list (0 to getAvailablePieceCount() - 1).
+     * @return The square (row * 8 + col) of the piece at that position.
      */
-    public void removePiece(Piece piece) {
-        availablePieces.remove(piece);
+    public int getPieceSquare(int index) {
+        return board.getPieceSquare(color, index);
     }
 
     /**
-     * Adds a captured piece to the player's captured pieces list.
+     * Gets the list of captured pieces from the opponent.
      *
-     * @param piece The piece that was captured.
+     * @return A read-only live view of the pieces this player has captured, in capture order.
      */
-    public void addCapturedPiece(Piece piece) {
-        if (piece != null && !piece.getColor().equals(color)) {
-            capturedPieces.add(piece);
-        }
+    public List<Piece> getCapturedPieces() {
+        return capturedPieces;
     }
 
     /**
@@ -87,7 +113,7 @@ public class Player {
      * @return The count of pieces still on the board.
      */
     public int getAvailablePieceCount() {
-        return availablePieces.size();
+        return board.getPieceListSize(color);
     }
 
     /**
@@ -96,7 +122,7 @@ public class Player {
      * @return The count of captured pieces.
      */
     public int getCapturedPieceCount() {
-        return capturedPieces.size();
+        return board.getCapturedCount(color);
     }
 
     /**
@@ -105,26 +131,7 @@ public class Player {
      * @return true if the player has pieces on the board, false otherwise.
      */
     public boolean hasAvailablePieces() {
-        return !availablePieces.isEmpty();
-    }
-
-    /**
-     * Updates the available pieces list based on the current board state.
-     * This method should be called after each move to keep the list current.
-     *
-     * @param board The current board state.
-     */
-    public void updateAvailablePieces(Piece[][] board) {
-        availablePieces.clear();
-        
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = board[row][col];
-                if (piece != null && piece.getColor().equals(color)) {
-                    availablePieces.add(piece);
-                }
-            }
-        }
+        return getAvailablePieceCount() > 0;
     }
 
     /**
@@ -134,7 +141,6 @@ public class Player {
      */
     @Override
     public String toString() {
-        return color.toUpperCase() + " Player (" + availablePieces.size() + " pieces)";
+        return color.getName().toUpperCase() + " Player (" + getAvailablePieceCount() + " pieces)";
     }
 }
-
@@ -0,0 +1,386 @@
+package game;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import board.Board;
+import board.BoardSnapshot;
+import board.MoveListener;
+
+/**
+ * Broadcasts a game to any number of spectators.
+ *
+ * Each applied move is encoded once, as a 4-byte delta, into a shared batch.
+ * A background thread sends the batch to every spectator once per flush
+ * interval, so each connection gets one write per interval however many
+ * moves were made, and the thread making moves never touches the network.
+ * A spectator receives a full snapshot of the position only when it joins,
+ * when it asks for one, when the board is reset, or when it fell so far
+ * behind that its pending output was dropped.
+ *
+ * Messages (big-endian):
+ * - Move: 0x01, the low 8 bits of the move's sequence number, then the
+ *   packed move (see {@link board.Move}) in 2 bytes. 4 bytes in total.
+ * - Snapshot: 0x02, the sequence number the next move will have (4 bytes),
+ *   the full move number (2 bytes), then {@link Board#SNAPSHOT_SIZE} bytes
+ *   in the format of {@link Board#snapshot(byte[], int)}.
+ * A spectator that sees a gap in the move sequence numbers, or cannot apply
+ * a move, sends any byte to request a new snapshot.
+ */
+public class SpectatorHub implements MoveListener, Closeable {
+    /** Default time between batched sends. */
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 100;
+
+    /** Tag of a move message. */
+    public static final byte MOVE_MESSAGE = 1;
+    /** Tag of a snapshot message. */
+    public static final byte SNAPSHOT_MESSAGE = 2;
+
+    private static final int MOVE_SIZE = 4;
+    private static final int SNAPSHOT_MESSAGE_SIZE = 7 + Board.SNAPSHOT_SIZE;
+    private static final int BATCH_SIZE = 16 * 1024;
+    // Output a spectator may have queued before it is considered stalled and resynced
+    private static final int BACKLOG_SIZE = 16 * 1024;
+
+    private final Board board;
+    private final ServerSocketChannel server;
+    private final Thread acceptor;
+    private final ScheduledExecutorService flusher;
+
+    // Moves are appended to pending under lock; a flush swaps it with sending
+    private final Object lock = new Object();
+    private ByteBuffer pending = ByteBuffer.allocate(BATCH_SIZE);
+    private ByteBuffer sending = ByteBuffer.allocate(BATCH_SIZE);
+    private BoardSnapshot latest;
+    private int sequence;
+    private boolean resyncAll;
+
+    // Only the flusher thread touches the spectator list; new spectators are queued
+    private final ConcurrentLinkedQueue<Spectator> joining = new ConcurrentLinkedQueue<>();
+    private final List<Spectator> spectators = new ArrayList<>();
+    private final ByteBuffer snapshotMessage = ByteBuffer.allocate(SNAPSHOT_MESSAGE_SIZE);
+    private final ByteBuffer requests = ByteBuffer.allocate(64);
+    private volatile int spectatorCount;
+    private volatile long resyncs;
+
+    /**
+     * A connected spectator and the output it has not yet accepted.
+     */
+    private static final class Spectator {
+        final WritableByteChannel channel;
+        final ByteBuffer backlog = ByteBuffer.allocate(BACKLOG_SIZE);
+        // Unsent bytes at the head of the backlog that finish a message the channel took part of
+        int partial;
+        boolean needsSnapshot = true;
+
+        Spectator(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * Creates a hub for a board, without a listening socket.
+     * Spectators are added with {@link #addSpectator(WritableByteChannel)}.
+     *
+     * @param board The board to broadcast.
+     * @param flushIntervalMillis Time between batched sends.
+     */
+    public SpectatorHub(Board board, long flushIntervalMillis) {
+        this(board, null, flushIntervalMillis);
+    }
+
+    private SpectatorHub(Board board, ServerSocketChannel server, long flushIntervalMillis) {
+        if (flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Flush interval must be positive: " + flushIntervalMillis);
+        }
+        this.board = board;
+        this.server = server;
+        this.latest = board.getPublishedSnapshot();
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "spectator-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+
+        if (server != null) {
+            acceptor = new Thread(this::acceptLoop, "spectator-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        } else {
+            acceptor = null;
+        }
+        board.addMoveListener(this);
+    }
+
+    /**
+     * Starts broadcasting a board to spectators connecting on a TCP port.
+     *
+     * @param board The board to broadcast.
+     * @param port The port to listen on (0 picks a free port).
+     * @param flushIntervalMillis Time between batched sends.
+     * @return The running hub.
+     * @throws IOException if the port cannot be opened.
+     */
+    public static SpectatorHub listen(Board board, int port, long flushIntervalMillis) throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open();
+        try {
+            server.bind(new InetSocketAddress(port));
+            return new SpectatorHub(board, server, flushIntervalMillis);
+        } catch (IOException | RuntimeException e) {
+            server.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the port spectators connect to.
+     *
+     * @return The local port, or -1 if the hub is not listening.
+     */
+    public int getPort() {
+        return server == null ? -1 : server.socket().getLocalPort();
+    }
+
+    /**
+     * Adds a spectator. It receives a snapshot on the next flush and every
+     * move after that. A channel that is also readable is polled for resync
+     * requests. The hub closes the channel when the spectator disconnects
+     * or the hub is closed.
+     *
+     * @param channel The channel to send to; socket channels are switched to non-blocking mode.
+     * @throws IOException if the channel cannot be configured.
+     */
+    public void addSpectator(WritableByteChannel channel) throws IOException {
+        if (channel instanceof SocketChannel) {
+            ((SocketChannel) channel).configureBlocking(false);
+        }
+        joining.add(new Spectator(channel));
+    }
+
+    /**
+     * Gets the number of connected spectators, as of the last flush.
+     *
+     * @return The spectator count.
+     */
+    public int getSpectatorCount() {
+        return spectatorCount;
+    }
+
+    /**
+     * Gets the number of snapshots sent to spectators already watching,
+     * because they asked for one or fell behind.
+     *
+     * @return The resync count.
+     */
+    public long getResyncCount() {
+        return resyncs;
+    }
+
+    @Override
+    public void moveApplied(int move) {
+        BoardSnapshot position = board.getPublishedSnapshot();
+        synchronized (lock) {
+            if (position.getVersion() != latest.getVersion() + 1) {
+                // The board publishes one snapshot per move; anything else means it changed behind
+                // our back (loadFen, restore, setSideToMove), so the batched moves no longer apply
+                pending.clear();
+                resyncAll = true;
+            } else if (pending.remaining() >= MOVE_SIZE) {
+                pending.put(MOVE_MESSAGE).put((byte) sequence).putShort((short) move);
+            } else {
+                // Far more moves than one interval ever holds; cheaper to resync everyone
+                resyncAll = true;
+            }
+            sequence++;
+            latest = position;
+        }
+    }
+
+    @Override
+    public void boardReset() {
+        BoardSnapshot position = board.getPublishedSnapshot();
+        synchronized (lock) {
+            pending.clear();
+            resyncAll = true;
+            latest = position;
+        }
+    }
+
+    /**
+     * Sends the moves batched since the last flush to every spectator, and
+     * snapshots to those that need one. Runs on the flusher thread.
+     */
+    private void flush() {
+        BoardSnapshot position;
+        int nextSequence;
+        boolean resync;
+        synchronized (lock) {
+            ByteBuffer swap = pending;
+            pending = sending;
+            sending = swap;
+            position = latest;
+            nextSequence = sequence;
+            resync = resyncAll;
+            resyncAll = false;
+        }
+        sending.flip();
+
+        // Encode the snapshot once; the position already includes the batched moves
+        snapshotMessage.clear();
+        snapshotMessage.put(SNAPSHOT_MESSAGE).putInt(nextSequence).putShort((short) position.getFullmoveNumber());
+        position.pack(snapshotMessage.array(), snapshotMessage.position());
+        snapshotMessage.position(SNAPSHOT_MESSAGE_SIZE).flip();
+
+        for (Spectator joined; (joined = joining.poll()) != null; ) {
+            spectators.add(joined);
+        }
+        for (int i = spectators.size() - 1; i >= 0; i--) {
+            Spectator spectator = spectators.get(i);
+            try {
+                send(spectator, resync);
+            } catch (IOException e) {
+                spectators.set(i, spectators.get(spectators.size() - 1));
+                spectators.remove(spectators.size() - 1);
+                closeQuietly(spectator.channel);
+            }
+        }
+        spectatorCount = spectators.size();
+        sending.clear();
+    }
+
+    /**
+     * Queues this flush's output for one spectator and writes as much of its
+     * backlog as the channel accepts without blocking.
+     */
+    private void send(Spectator spectator, boolean resync) throws IOException {
+        boolean requested = spectator.channel instanceof ReadableByteChannel
+                && readRequests((ReadableByteChannel) spectator.channel);
+        if (!spectator.needsSnapshot && (requested || spectator.backlog.remaining() < sending.remaining())) {
+            spectator.needsSnapshot = true;
+            resyncs++;
+        }
+        if (resync) {
+            spectator.needsSnapshot = true;
+        }
+        if (spectator.needsSnapshot) {
+            // A snapshot replaces the queued messages, but a message the channel
+            // took part of must be finished or the spectator loses the framing
+            spectator.backlog.position(spectator.partial);
+            spectator.backlog.put(snapshotMessage.duplicate());
+            spectator.needsSnapshot = false;
+        } else {
+            spectator.backlog.put(sending.duplicate());
+        }
+
+        spectator.backlog.flip();
+        if (spectator.backlog.hasRemaining()) {
+            int written = spectator.channel.write(spectator.backlog);
+            spectator.partial = unsentTail(spectator.backlog.array(), spectator.partial, written);
+        }
+        spectator.backlog.compact();
+    }
+
+    /**
+     * Finds how much of the message a write stopped in is still unsent.
+     *
+     * @param backlog The queued bytes, starting with the tail of a message partially sent before.
+     * @param partial The length of that tail.
+     * @param written The number of bytes just written.
+     * @return The number of bytes left of the message the write stopped in, or 0 if it stopped between messages.
+     */
+    private static int unsentTail(byte[] backlog, int partial, int written) {
+        int boundary = partial;
+        while (boundary < written) {
+            boundary += backlog[boundary] == MOVE_MESSAGE ? MOVE_SIZE : SNAPSHOT_MESSAGE_SIZE;
+        }
+        return boundary - written;
+    }
+
+    /**
+     * Drains bytes a spectator sent; any byte is a resync request.
+     *
+     * @return true if the spectator asked for a snapshot.
+     * @throws IOException if the spectator disconnected.
+     */
+    private boolean readRequests(ReadableByteChannel channel) throws IOException {
+        boolean requested = false;
+        int read;
+        do {
+            requests.clear();
+            read = channel.read(requests);
+            if (read < 0) {
+                throw new ClosedChannelException();
+            }
+            requested |= read > 0;
+        } while (read == requests.capacity());
+        return requested;
+    }
+
+    /**
+     * Accepts spectator connections until the server socket is closed.
+     */
+    private void acceptLoop() {
+        while (server.isOpen()) {
+            try {
+                SocketChannel channel = server.accept();
+                channel.socket().setTcpNoDelay(true);
+                addSpectator(channel);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                System.err.println("Could not accept spectator: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stops broadcasting and disconnects all spectators.
+     *
+     * @throws IOException if the server socket cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        board.removeMoveListener(this);
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Spectator spectator : spectators) {
+            closeQuietly(spectator.channel);
+        }
+        for (Spectator spectator : joining) {
+            closeQuietly(spectator.channel);
+        }
+        spectators.clear();
+        joining.clear();
+        spectatorCount = 0;
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    private static void closeQuietly(WritableByteChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nothing more to do for a spectator that is going away
+        }
+    }
+}
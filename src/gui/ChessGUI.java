@@ -1,13 +1,22 @@
 package gui;
 
 import board.Board;
+import board.DrawReason;
+import board.MoveListener;
+import db.PositionDatabase;
+import db.PositionStats;
+import game.GameJournal;
+import metrics.Metrics;
+import metrics.RepaintEvent;
 import pieces.Piece;
-import pieces.King;
 
 import javax.swing.*;
+import javax.swing.border.Border;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.nio.file.Path;
 
 /**
  * Chess GUI with full Phase 2 functionality:
@@ -15,7 +24,11 @@ import java.awt.event.MouseEvent;
  * - Click-to-select and click-to-move interaction
  * - Piece capture functionality
  * - King capture detection and game over popup
+ * - Draw detection (repetition, fifty-move rule, insufficient material)
  * - Visual feedback and status updates
+ * - Tinted squares under the pieces the opponent threatens, and red frames around
+ *   pieces it can win by capturing them
+ * - Optional position database statistics for the current position
  * 
  * @author [Your Name]
  * @version 2.0
@@ -26,12 +39,18 @@ public class ChessGUI extends JFrame {
     private static final Color LIGHT_SQUARE = new Color(240, 217, 181);
     private static final Color DARK_SQUARE = new Color(181, 136, 99);
     private static final Color SELECTED_SQUARE = new Color(255, 255, 0, 150);
+    private static final Color HANGING_PIECE = new Color(220, 30, 30);
+    private static final Color THREATENED_LIGHT = new Color(240, 180, 140);
+    private static final Color THREATENED_DARK = new Color(200, 110, 80);
+    private static final Color CHECK_SQUARE = new Color(230, 70, 60);
     
     // Core components
     private final Board board;
     private final JPanel boardPanel;
     private final JButton[][] squares;
     private final JLabel statusLabel;
+    private final JLabel explorerLabel;
+    private PositionDatabase positions;
     
     // Game state tracking
     private int selectedRow = -1;
@@ -47,6 +66,11 @@ public class ChessGUI extends JFrame {
         boardPanel = new JPanel(new GridLayout(8, 8, 0, 0)); // No gaps between squares
         squares = new JButton[8][8];
         statusLabel = new JLabel("White's Turn", SwingConstants.CENTER);
+        explorerLabel = new JLabel(" ", SwingConstants.CENTER);
+
+        // The end of the game is detected synchronously after every move, so it can never be missed
+        board.addMoveListener(new GameEndListener());
+        Metrics.watch(board);
 
         // Setup GUI
         initializeGUI();
@@ -94,6 +118,11 @@ public class ChessGUI extends JFrame {
         
         boardContainer.add(boardPanel, BorderLayout.CENTER);
         mainPanel.add(boardContainer, BorderLayout.CENTER);
+
+        // Position database statistics at the bottom (blank unless a database is open)
+        explorerLabel.setFont(new Font("Arial", Font.PLAIN, 14));
+        explorerLabel.setBorder(BorderFactory.createEmptyBorder(0, 15, 15, 15));
+        mainPanel.add(explorerLabel, BorderLayout.SOUTH);
         
         // Add main panel to frame
         add(mainPanel);
@@ -114,6 +143,9 @@ public class ChessGUI extends JFrame {
      * Creates the visual chess board with all squares and pieces
      */
     private void drawBoard() {
+        RepaintEvent event = new RepaintEvent();
+        event.begin();
+        long start = Metrics.ENABLED ? System.nanoTime() : 0L;
         boardPanel.removeAll();
 
         for (int row = 0; row < 8; row++) {
@@ -126,6 +158,26 @@ public class ChessGUI extends JFrame {
 
         boardPanel.revalidate();
         boardPanel.repaint();
+        updateExplorer();
+        if (Metrics.ENABLED) {
+            Metrics.REPAINT.record(System.nanoTime() - start);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.view = "gui";
+            event.commit();
+        }
+    }
+
+    /**
+     * Shows the position database statistics for the current position
+     */
+    private void updateExplorer() {
+        if (positions == null) {
+            return;
+        }
+        PositionStats stats = positions.lookup(board.getHash());
+        explorerLabel.setText(stats == null ? "Position not in database" : "Seen in " + stats);
     }
     
     /**
@@ -137,13 +189,12 @@ public class ChessGUI extends JFrame {
         square.setMinimumSize(new Dimension(SQUARE_SIZE, SQUARE_SIZE));
         square.setMaximumSize(new Dimension(SQUARE_SIZE, SQUARE_SIZE));
         square.setFocusPainted(false);
-        square.setBorder(BorderFactory.createLineBorder(Color.DARK_GRAY, 1));
+        square.setBorder(squareBorder(row, col));
         square.setFont(new Font("Arial Unicode MS", Font.BOLD, 32));
         square.setOpaque(true);
         
-        // Set alternating square colors
-        Color squareColor = (row + col) % 2 == 0 ? LIGHT_SQUARE : DARK_SQUARE;
-        square.setBackground(squareColor);
+        // Set alternating square colors, tinted where the side to move is threatened
+        square.setBackground(squareBackground(row, col));
         
         // Add piece symbol if there's a piece on this square
         Piece piece = board.getPiece(row, col);
@@ -152,7 +203,7 @@ public class ChessGUI extends JFrame {
             square.setText(symbol);
             
             // Set piece color with better contrast
-            if (piece.getColor().equals("white")) {
+            if (piece.getSide() == pieces.Color.WHITE) {
                 square.setForeground(new Color(255, 255, 255)); // White pieces
             } else {
                 square.setForeground(new Color(0, 0, 0)); // Black pieces
@@ -230,7 +281,7 @@ public class ChessGUI extends JFrame {
             return;
         }
         
-        if (!piece.getColor().equals(board.getCurrentPlayer())) {
+        if (piece.getSide() != board.getSideToMove()) {
             statusLabel.setText("It's " + board.getCurrentPlayer().toUpperCase() + "'s turn!");
             return;
         }
@@ -259,25 +310,11 @@ public class ChessGUI extends JFrame {
      * Attempts to move the selected piece to the target square
      */
     private void attemptMove(int toRow, int toCol) {
-        // Check what piece (if any) is at the destination
-        Piece capturedPiece = board.getPiece(toRow, toCol);
-        
         // Use your existing board logic to attempt the move
         boolean moveSuccessful = board.movePiece(selectedRow, selectedCol, toRow, toCol);
         
         if (moveSuccessful) {
-            // Move was successful
-            if (capturedPiece != null) {
-                // A piece was captured
-                if (capturedPiece instanceof King) {
-                    // King captured - game over!
-                    String winner = capturedPiece.getColor().equals("white") ? "BLACK" : "WHITE";
-                    handleGameOver(winner);
-                    return;
-                }
-            }
-            
-            // Update the visual board and continue game
+            // Update the visual board and continue game (the end of the game is shown by GameEndListener)
             drawBoard();
             deselectPiece();
             statusLabel.setText(board.getCurrentPlayer().toUpperCase() + "'s Turn");
@@ -288,18 +325,55 @@ public class ChessGUI extends JFrame {
         }
     }
     
+    /**
+     * Ends the game when a move captures a king or draws by rule. Moves are
+     * made on the Event Dispatch Thread, so the game stops taking clicks at
+     * once; the result dialog is shown once the move has finished.
+     */
+    private class GameEndListener implements MoveListener {
+        @Override
+        public void moveApplied(int move) {
+            if (gameOver) {
+                return;
+            }
+            pieces.Color winner = board.getWinner();
+            DrawReason draw = winner == null ? board.getDrawReason() : null;
+            if (winner != null) {
+                gameOver = true;
+                SwingUtilities.invokeLater(() -> handleGameOver(winner == pieces.Color.WHITE ? "WHITE" : "BLACK"));
+            } else if (draw != null) {
+                gameOver = true;
+                SwingUtilities.invokeLater(() -> handleDraw(draw));
+            }
+        }
+    }
+
     /**
      * Handles game over when a King is captured
      */
     private void handleGameOver(String winner) {
+        endGame("GAME OVER - " + winner + " WINS!",
+                "Game Over!\n\n" + winner + " wins by capturing the King!");
+    }
+
+    /**
+     * Handles game over when the position is drawn by rule
+     */
+    private void handleDraw(DrawReason reason) {
+        endGame("GAME OVER - DRAW", "Game Over!\n\nThe game is drawn by " + reason.getDescription() + ".");
+    }
+
+    /**
+     * Shows the final position and result, then offers a new game
+     */
+    private void endGame(String status, String message) {
         gameOver = true;
         drawBoard();
         deselectPiece();
         
-        statusLabel.setText("GAME OVER - " + winner + " WINS!");
+        statusLabel.setText(status);
         
-        // Show winner popup dialog
-        String message = "Game Over!\n\n" + winner + " wins by capturing the King!";
+        // Show result popup dialog
         JOptionPane.showMessageDialog(
             this,
             message,
@@ -331,19 +405,47 @@ public class ChessGUI extends JFrame {
             square.setBorder(BorderFactory.createLineBorder(Color.YELLOW, 3));
         } else {
             // Restore original square color
-            Color originalColor = (row + col) % 2 == 0 ? LIGHT_SQUARE : DARK_SQUARE;
-            square.setBackground(originalColor);
-            square.setBorder(BorderFactory.createLineBorder(Color.GRAY, 1));
+            square.setBackground(squareBackground(row, col));
+            square.setBorder(squareBorder(row, col));
         }
     }
 
+    /**
+     * Gets the normal background of a square: tinted if it holds a piece of
+     * the side to move that the opponent attacks, red for a king in check.
+     * Uses the attack counts the board keeps, so nothing is regenerated.
+     */
+    private Color squareBackground(int row, int col) {
+        boolean light = (row + col) % 2 == 0;
+        Piece piece = board.getPiece(row * 8 + col);
+        pieces.Color side = board.getSideToMove();
+        if (piece != null && piece.getSide() == side && board.isSquareAttacked(row * 8 + col, side.opposite())) {
+            if (piece.getType() == Piece.KING) {
+                return CHECK_SQUARE;
+            }
+            return light ? THREATENED_LIGHT : THREATENED_DARK;
+        }
+        return light ? LIGHT_SQUARE : DARK_SQUARE;
+    }
+
+    /**
+     * Gets the normal border of a square: a red frame around a piece the
+     * opponent can win by capturing it, a thin line otherwise.
+     */
+    private Border squareBorder(int row, int col) {
+        if (board.isHanging(row * 8 + col)) {
+            return BorderFactory.createLineBorder(HANGING_PIECE, 3);
+        }
+        return BorderFactory.createLineBorder(Color.DARK_GRAY, 1);
+    }
+
     /**
      * Gets the Unicode chess symbol for a piece
      * Falls back to text symbols if Unicode isn't supported
      */
     private String getPieceSymbol(Piece piece) {
         String pieceType = piece.getClass().getSimpleName();
-        boolean isWhite = piece.getColor().equals("white");
+        boolean isWhite = piece.getSide() == pieces.Color.WHITE;
         
         switch (pieceType) {
             case "Pawn":
@@ -376,6 +478,36 @@ public class ChessGUI extends JFrame {
         statusLabel.setText("White's Turn");
     }
     
+    /**
+     * Records every move in a journal file, first replaying any moves already
+     * in it so a game interrupted by a crash continues where it stopped.
+     *
+     * @param file The journal file.
+     * @param fsyncIntervalMillis Time between group commits, or 0 to fsync every move.
+     * @throws IOException if the journal cannot be opened.
+     */
+    public void openJournal(Path file, long fsyncIntervalMillis) throws IOException {
+        GameJournal journal = GameJournal.open(file, board, fsyncIntervalMillis);
+        deselectPiece();
+        drawBoard();
+        if (journal.getRecoveredMoves() > 0) {
+            statusLabel.setText("Recovered " + journal.getRecoveredMoves() + " moves - "
+                                + board.getCurrentPlayer().toUpperCase() + "'s Turn");
+        }
+    }
+
+    /**
+     * Shows statistics from a position database (built by batch mode) below
+     * the board, updated after every move.
+     *
+     * @param file The position database file.
+     * @throws IOException if the database cannot be opened.
+     */
+    public void openPositionDatabase(Path file) throws IOException {
+        positions = PositionDatabase.openForReading(file);
+        updateExplorer();
+    }
+
     /**
      * Gets the current board (useful for testing)
      */
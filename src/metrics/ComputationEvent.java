@@ -0,0 +1,49 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for a long-running computation such as generating
+ * lookup tables, validating a batch of games or committing to disk.
+ */
+@Name("chess.Computation")
+@Label("Computation")
+@Category("Chess")
+@Description("A long-running computation")
+@Threshold("20 ms")
+public class ComputationEvent extends Event {
+    @Label("Operation")
+    public String operation;
+
+    @Label("Items")
+    @Description("Number of items processed, when meaningful")
+    public long items;
+
+    /**
+     * Creates an event for an operation and starts its timing.
+     *
+     * @param operation The name of the operation.
+     */
+    public ComputationEvent(String operation) {
+        this.operation = operation;
+        begin();
+    }
+
+    /**
+     * Ends the timing and records the event if it passed its threshold.
+     *
+     * @param items The number of items processed.
+     */
+    public void finish(long items) {
+        end();
+        if (shouldCommit()) {
+            this.items = items;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, in the style of
+ * HdrHistogram: values below 32 get one bucket each, and every power of two
+ * above that is split into 16 equal buckets, so any recorded value is known
+ * to within about 6% over the full range of a long. Recording is one
+ * bucket computation and a few atomic adds, with no allocation.
+ */
+public final class LatencyHistogram {
+    private static final int LINEAR_BUCKETS = 32;
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = LINEAR_BUCKETS + (63 - 5) * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * Creates an empty histogram.
+     *
+     * @param name The name shown in reports.
+     */
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records one value.
+     *
+     * @param nanos The latency in nanoseconds; negative values count as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0L, nanos);
+        counts.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Gets the bucket index of a value.
+     */
+    static int bucket(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_BUCKETS + (exponent - 5) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Gets the smallest value that falls in a bucket.
+     */
+    static long lowerBound(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 5;
+        int sub = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * Gets the histogram's name.
+     *
+     * @return The name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return The count.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the mean of the recorded values.
+     *
+     * @return The mean in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : sum.sum() / n;
+    }
+
+    /**
+     * Gets the largest recorded value.
+     *
+     * @return The maximum in nanoseconds.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets a percentile of the recorded values, as the lower bound of the
+     * bucket that contains it.
+     *
+     * @param percentile The percentile (0-100).
+     * @return The value in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return lowerBound(i);
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-16s count=%d mean=%s p50=%s p99=%s max=%s", name, getCount(),
+                             format(getMean()), format(getPercentile(50)),
+                             format(getPercentile(99)), format(getMax()));
+    }
+
+    /**
+     * Formats a duration with a readable unit.
+     */
+    static String format(long nanos) {
+        if (nanos < 10_000) {
+            return nanos + "ns";
+        }
+        if (nanos < 10_000_000) {
+            return (nanos / 1_000) + "us";
+        }
+        return (nanos / 1_000_000) + "ms";
+    }
+}
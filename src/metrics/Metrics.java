@@ -0,0 +1,238 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import board.Board;
+import board.BoardEvent;
+import board.BoardEventPublisher;
+import board.BoardEventSubscriber;
+import board.MoveResult;
+
+/**
+ * Process-wide metrics for move handling and rendering.
+ *
+ * Metrics are off unless the JVM is started with -Dchess.metrics=true (or
+ * the --metrics option, which sets the property before anything is loaded).
+ * {@link #ENABLED} is a static final constant, so call sites written as
+ *
+ *   if (Metrics.ENABLED) { ... }
+ *
+ * are removed entirely by the JIT when metrics are off. When on, counters
+ * are LongAdders and latencies go to {@link LatencyHistogram}s, so recording
+ * never takes a lock.
+ *
+ * Captures, promotions and finished games are counted from a board's
+ * {@link BoardEventPublisher} (see {@link #watch(Board)}), off the thread
+ * that moves the pieces. Events the counter cannot keep up with are dropped
+ * rather than delaying moves, so these counts can fall short; the number of
+ * dropped events is reported with them.
+ */
+public final class Metrics implements MetricsMXBean {
+    /** true if metrics are recorded; fixed when the class is loaded. */
+    public static final boolean ENABLED = Boolean.getBoolean("chess.metrics");
+
+    /** Time to apply or reject a move in Board.applyMove. */
+    public static final LatencyHistogram MOVE_APPLY = new LatencyHistogram("move apply");
+    /** Time to generate a piece's moves in Board.getMoveTargets and Piece.possibleMoves. */
+    public static final LatencyHistogram MOVE_GENERATION = new LatencyHistogram("move generation");
+    /** Time to process one line of console input. */
+    public static final LatencyHistogram INPUT = new LatencyHistogram("console input");
+    /** Time to redraw the GUI board. */
+    public static final LatencyHistogram REPAINT = new LatencyHistogram("gui repaint");
+
+    private static final LongAdder MOVES_APPLIED = new LongAdder();
+    private static final LongAdder[] REJECTED = new LongAdder[MoveResult.values().length];
+    private static final LongAdder CAPTURES = new LongAdder();
+    private static final LongAdder PROMOTIONS = new LongAdder();
+    private static final LongAdder GAMES_FINISHED = new LongAdder();
+    private static final LongAdder EVENTS_DROPPED = new LongAdder();
+    private static volatile long startNanos = System.nanoTime();
+
+    private static final Metrics INSTANCE = new Metrics();
+
+    static {
+        for (int i = 0; i < REJECTED.length; i++) {
+            REJECTED[i] = new LongAdder();
+        }
+        if (ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName("chess:type=Metrics"));
+            } catch (JMException e) {
+                System.err.println("Could not register metrics MBean: " + e.getMessage());
+            }
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Records the outcome and duration of a move attempt.
+     *
+     * @param result The result of applying the move.
+     * @param nanos The time taken, in nanoseconds.
+     */
+    public static void recordMove(MoveResult result, long nanos) {
+        if (result == MoveResult.OK) {
+            MOVES_APPLIED.increment();
+        } else {
+            REJECTED[result.ordinal()].increment();
+        }
+        MOVE_APPLY.record(nanos);
+    }
+
+    /**
+     * Counts the captures, promotions and finished games of a board from its
+     * event stream. Does nothing when metrics are disabled.
+     *
+     * @param board The board to watch.
+     */
+    public static void watch(Board board) {
+        if (ENABLED) {
+            new BoardEventPublisher(board).subscribe(new EventCounter());
+        }
+    }
+
+    /**
+     * Gets the shared instance (the one registered with JMX).
+     *
+     * @return The metrics instance.
+     */
+    public static Metrics getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public long getMovesApplied() {
+        return MOVES_APPLIED.sum();
+    }
+
+    @Override
+    public double getMovesPerSecond() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds <= 0 ? 0 : MOVES_APPLIED.sum() / seconds;
+    }
+
+    @Override
+    public Map<String, Long> getRejectedMoves() {
+        Map<String, Long> rejected = new LinkedHashMap<>();
+        for (MoveResult result : MoveResult.values()) {
+            if (result != MoveResult.OK) {
+                rejected.put(result.name(), REJECTED[result.ordinal()].sum());
+            }
+        }
+        return rejected;
+    }
+
+    @Override
+    public long getCaptures() {
+        return CAPTURES.sum();
+    }
+
+    @Override
+    public long getPromotions() {
+        return PROMOTIONS.sum();
+    }
+
+    @Override
+    public long getGamesFinished() {
+        return GAMES_FINISHED.sum();
+    }
+
+    @Override
+    public long getBoardEventsDropped() {
+        return EVENTS_DROPPED.sum();
+    }
+
+    @Override
+    public long getMoveApplyP99Nanos() {
+        return MOVE_APPLY.getPercentile(99);
+    }
+
+    @Override
+    public long getMoveGenerationP99Nanos() {
+        return MOVE_GENERATION.getPercentile(99);
+    }
+
+    @Override
+    public long getInputP99Nanos() {
+        return INPUT.getPercentile(99);
+    }
+
+    @Override
+    public long getRepaintP99Nanos() {
+        return REPAINT.getPercentile(99);
+    }
+
+    @Override
+    public String getReport() {
+        if (!ENABLED) {
+            return "Metrics are disabled (start with --metrics or -Dchess.metrics=true).";
+        }
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("moves applied    %d (%.1f/s)%n", getMovesApplied(), getMovesPerSecond()));
+        report.append("moves rejected  ");
+        for (Map.Entry<String, Long> entry : getRejectedMoves().entrySet()) {
+            report.append(' ').append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        report.append(System.lineSeparator());
+        report.append(String.format("captures         %d, promotions %d, games finished %d (%d events dropped)%n",
+                                    getCaptures(), getPromotions(), getGamesFinished(), getBoardEventsDropped()));
+        for (LatencyHistogram histogram : new LatencyHistogram[]{MOVE_APPLY, MOVE_GENERATION, INPUT, REPAINT}) {
+            report.append(histogram).append(System.lineSeparator());
+        }
+        return report.toString();
+    }
+
+    @Override
+    public void reset() {
+        MOVES_APPLIED.reset();
+        for (LongAdder rejected : REJECTED) {
+            rejected.reset();
+        }
+        CAPTURES.reset();
+        PROMOTIONS.reset();
+        GAMES_FINISHED.reset();
+        EVENTS_DROPPED.reset();
+        MOVE_APPLY.reset();
+        MOVE_GENERATION.reset();
+        INPUT.reset();
+        REPAINT.reset();
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Counts board events. Gaps in the sequence numbers are events the
+     * publisher dropped for this subscriber.
+     */
+    private static final class EventCounter extends BoardEventSubscriber {
+        private long nextSequence = -1;
+
+        @Override
+        protected void onEvent(BoardEvent event) {
+            if (nextSequence >= 0 && event.getSequence() > nextSequence) {
+                EVENTS_DROPPED.add(event.getSequence() - nextSequence);
+            }
+            nextSequence = event.getSequence() + 1;
+            switch (event.getType()) {
+                case CAPTURE:
+                    CAPTURES.increment();
+                    break;
+                case PROMOTION:
+                    PROMOTIONS.increment();
+                    break;
+                case GAME_END:
+                    GAMES_FINISHED.increment();
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface exposing the game metrics over JMX
+ * (registered as "chess:type=Metrics" when metrics are enabled).
+ */
+public interface MetricsMXBean {
+
+    /**
+     * @return The number of moves applied.
+     */
+    long getMovesApplied();
+
+    /**
+     * @return The average number of moves applied per second since metrics started.
+     */
+    double getMovesPerSecond();
+
+    /**
+     * @return The number of rejected moves per reason (see board.MoveResult).
+     */
+    Map<String, Long> getRejectedMoves();
+
+    /**
+     * @return The number of captures, counted from board events.
+     */
+    long getCaptures();
+
+    /**
+     * @return The number of promotions, counted from board events.
+     */
+    long getPromotions();
+
+    /**
+     * @return The number of games that ended, counted from board events.
+     */
+    long getGamesFinished();
+
+    /**
+     * @return The number of board events dropped before they were counted.
+     */
+    long getBoardEventsDropped();
+
+    /**
+     * @return The 99th percentile time to apply or reject a move, in nanoseconds.
+     */
+    long getMoveApplyP99Nanos();
+
+    /**
+     * @return The 99th percentile time to generate a piece's moves, in nanoseconds.
+     */
+    long getMoveGenerationP99Nanos();
+
+    /**
+     * @return The 99th percentile time to process one line of console input, in nanoseconds.
+     */
+    long getInputP99Nanos();
+
+    /**
+     * @return The 99th percentile time to redraw the GUI board, in nanoseconds.
+     */
+    long getRepaintP99Nanos();
+
+    /**
+     * @return A multi-line text report of all metrics.
+     */
+    String getReport();
+
+    /**
+     * Clears all counters and histograms.
+     */
+    void reset();
+}
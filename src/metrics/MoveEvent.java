@@ -0,0 +1,37 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for one move attempt on a board, applied or rejected.
+ * Only attempts slower than the threshold are recorded by default; use a
+ * recording setting of chess.Move#threshold=0 ms to capture every move.
+ */
+@Name("chess.Move")
+@Label("Move")
+@Category({"Chess", "Board"})
+@Description("A move applied to or rejected by a board")
+@Threshold("100 us")
+@StackTrace(false)
+public class MoveEvent extends Event {
+    @Label("Move")
+    @Description("The move in UCI notation")
+    public String move;
+
+    @Label("Result")
+    @Description("OK, or the reason the move was rejected")
+    public String result;
+
+    @Label("Piece")
+    public String piece;
+
+    @Label("Captured")
+    @Description("The captured piece, if any")
+    public String captured;
+}
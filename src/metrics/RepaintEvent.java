@@ -0,0 +1,24 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for one redraw of the board, in the GUI or the console.
+ */
+@Name("chess.Repaint")
+@Label("Board Repaint")
+@Category({"Chess", "Rendering"})
+@Description("A redraw of the board")
+@Threshold("10 ms")
+@StackTrace(false)
+public class RepaintEvent extends Event {
+    @Label("View")
+    @Description("gui or console")
+    public String view;
+}
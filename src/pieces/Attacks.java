@@ -0,0 +1,90 @@
+package pieces;
+
+/**
+ * Precomputed attack tables for knights, kings and pawns.
+ * Each table holds one bitmask per square (bit n set means square n,
+ * row * 8 + col, is attacked). The tables are built once when the class
+ * is loaded so move generation and attack queries are plain array lookups.
+ */
+public final class Attacks {
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+
+    static {
+        int[][] knightOffsets = {
+                {-2, -1}, {-2, 1}, {-1, -2}, {-1, 2},
+                {1, -2}, {1, 2}, {2, -1}, {2, 1}
+        };
+        int[][] kingOffsets = {
+                {-1, -1}, {-1, 0}, {-1, 1}, {0, 1},
+                {1, 1}, {1, 0}, {1, -1}, {0, -1}
+        };
+
+        for (int square = 0; square < 64; square++) {
+            int row = square >> 3;
+            int col = square & 7;
+
+            KNIGHT[square] = offsetsMask(row, col, knightOffsets);
+            KING[square] = offsetsMask(row, col, kingOffsets);
+
+            // White pawns move towards row 0, black pawns towards row 7
+            PAWN[Color.WHITE.ordinal()][square] = offsetsMask(row, col, new int[][]{{-1, -1}, {-1, 1}});
+            PAWN[Color.BLACK.ordinal()][square] = offsetsMask(row, col, new int[][]{{1, -1}, {1, 1}});
+        }
+    }
+
+    private Attacks() {
+    }
+
+    /**
+     * Builds the mask of squares reached from a square by a set of offsets.
+     *
+     * @param row The starting row.
+     * @param col The starting column.
+     * @param offsets The [row, col] offsets to apply.
+     * @return The bitmask of target squares that are on the board.
+     */
+    private static long offsetsMask(int row, int col, int[][] offsets) {
+        long mask = 0L;
+        for (int[] offset : offsets) {
+            int r = row + offset[0];
+            int c = col + offset[1];
+            if (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                mask |= 1L << (r * 8 + c);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Gets the squares a knight on the given square attacks.
+     *
+     * @param square The knight's square (0-63).
+     * @return The attacked squares as a bitmask.
+     */
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    /**
+     * Gets the squares a king on the given square attacks.
+     *
+     * @param square The king's square (0-63).
+     * @return The attacked squares as a bitmask.
+     */
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    /**
+     * Gets the squares a pawn of the given color on the given square attacks.
+     *
+     * @param color The pawn's color.
+     * @param square The pawn's square (0-63).
+     * @return The attacked (diagonal capture) squares as a bitmask.
+     */
+    public static long pawn(Color color, int square) {
+        return PAWN[color.ordinal()][square];
+    }
+}
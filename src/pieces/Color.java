@@ -0,0 +1,62 @@
+package pieces;
+
+/**
+ * The two sides in a chess game.
+ * Used throughout the model instead of "white"/"black" strings so that
+ * color checks are reference comparisons; the string names are kept for
+ * display and for callers that still work with strings.
+ */
+public enum Color {
+    WHITE("white"),
+    BLACK("black");
+
+    private final String name;
+
+    Color(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the lowercase name of this color.
+     *
+     * @return "white" or "black".
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the other side.
+     *
+     * @return BLACK for WHITE and WHITE for BLACK.
+     */
+    public Color opposite() {
+        return this == WHITE ? BLACK : WHITE;
+    }
+
+    /**
+     * Converts a color name to a Color.
+     *
+     * @param name The color name ("white" or "black", case-insensitive).
+     * @return The matching color, or null if the name is not a color.
+     */
+    public static Color fromString(String name) {
+        if ("white".equalsIgnoreCase(name)) {
+            return WHITE;
+        }
+        if ("black".equalsIgnoreCase(name)) {
+            return BLACK;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the lowercase name of this color.
+     *
+     * @return "white" or "black".
+     */
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -1,170 +1,209 @@
 package pieces;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import metrics.Metrics;
+import utils.Square;
+
 /**
  * Abstract base class for all chess pieces.
- * Defines common attributes and methods that all chess pieces share.
+ * Pieces are immutable flyweights: there is exactly one shared instance per
+ * color and piece type (12 in total), and the position of a piece lives only
+ * in the board that holds it.
  */
 public abstract class Piece {
-    protected String color;
-    protected int row;
-    protected int col;
+    /** Piece type constants, also used to build piece codes. */
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
+    /** Number of distinct pieces (6 types for each of the 2 colors). */
+    public static final int COUNT = 12;
+
+    /**
+     * Material value of each piece type in centipawns. The king is worth more
+     * than all other material together, since capturing it ends the game.
+     */
+    private static final int[] VALUES = {100, 320, 330, 500, 900, 20000};
+
+    private static final Piece[] FLYWEIGHTS = {
+        new Pawn(Color.WHITE), new Knight(Color.WHITE), new Bishop(Color.WHITE),
+        new Rook(Color.WHITE), new Queen(Color.WHITE), new King(Color.WHITE),
+        new Pawn(Color.BLACK), new Knight(Color.BLACK), new Bishop(Color.BLACK),
+        new Rook(Color.BLACK), new Queen(Color.BLACK), new King(Color.BLACK)
+    };
+
+    protected final Color color;
+    private final int type;
+    private final int code;
 
     /**
-     * Constructs a new piece with the specified color and position.
+     * Constructs a new piece with the specified color and type.
+     * Only used to build the shared flyweight instances.
      *
-     * @param color The color of the piece ("white" or "black").
-     * @param row The initial row position (0-7).
-     * @param col The initial column position (0-7).
+     * @param color The color of the piece.
+     * @param type The piece type (PAWN to KING).
      */
-    public Piece(String color, int row, int col) {
+    Piece(Color color, int type) {
         this.color = color;
-        this.row = row;
-        this.col = col;
+        this.type = type;
+        this.code = color.ordinal() * 6 + type;
     }
 
     /**
-     * Gets the color of this piece.
+     * Gets the shared instance for a color and piece type.
      *
-     * @return The piece color ("white" or "black").
+     * @param color The color of the piece.
+     * @param type The piece type (PAWN to KING).
+     * @return The flyweight piece.
      */
-    public String getColor() {
-        return color;
+    public static Piece of(Color color, int type) {
+        return FLYWEIGHTS[color.ordinal() * 6 + type];
     }
 
     /**
-     * Gets the current row position of this piece.
+     * Gets the shared instance for a color name and piece type.
      *
-     * @return The row position (0-7).
+     * @param color The color of the piece ("white" or "black").
+     * @param type The piece type (PAWN to KING).
+     * @return The flyweight piece.
      */
-    public int getRow() {
-        return row;
+    public static Piece of(String color, int type) {
+        return of(Color.fromString(color), type);
     }
 
     /**
-     * Gets the current column position of this piece.
+     * Gets the shared instance for a piece code.
      *
-     * @return The column position (0-7).
+     * @param code The piece code (0-11).
+     * @return The flyweight piece.
      */
-    public int getCol() {
-        return col;
+    public static Piece fromCode(int code) {
+        return FLYWEIGHTS[code];
     }
 
     /**
-     * Sets the position of this piece.
+     * Gets the color of this piece.
      *
-     * @param row The new row position (0-7).
-     * @param col The new column position (0-7).
+     * @return The piece color ("white" or "black").
      */
-    public void setPosition(int row, int col) {
-        this.row = row;
-        this.col = col;
+    public String getColor() {
+        return color.getName();
     }
 
     /**
-     * Calculates all possible moves for this piece from its current position.
-     * This method must be implemented by each concrete piece class.
+     * Gets the side this piece belongs to.
      *
-     * @param board The current board state.
-     * @return A list of possible moves, where each move is represented as [row, col].
+     * @return The piece color.
      */
-    public abstract List<int[]> possibleMoves(Piece[][] board);
+    public Color getSide() {
+        return color;
+    }
 
     /**
-     * Checks if a position is within the board boundaries.
+     * Gets the type of this piece.
      *
-     * @param row The row to check.
-     * @param col The column to check.
-     * @return true if the position is valid, false otherwise.
+     * @return The piece type (PAWN to KING).
      */
-    protected boolean isValidPosition(int row, int col) {
-        return row >= 0 && row < 8 && col >= 0 && col < 8;
+    public int getType() {
+        return type;
     }
 
     /**
-     * Checks if a square is empty or contains an enemy piece.
+     * Gets the material value of a piece type.
      *
-     * @param board The game board.
-     * @param row The row to check.
-     * @param col The column to check.
-     * @return true if the square is empty or contains an enemy piece, false otherwise.
+     * @param type The piece type (PAWN to KING).
+     * @return The value in centipawns.
      */
-    protected boolean canMoveTo(Piece[][] board, int row, int col) {
-        if (!isValidPosition(row, col)) {
-            return false;
-        }
-
-        Piece targetPiece = board[row][col];
-        return targetPiece == null || !targetPiece.getColor().equals(this.color);
+    public static int value(int type) {
+        return VALUES[type];
     }
 
     /**
-     * Checks if a square contains an enemy piece.
+     * Gets the material value of this piece.
      *
-     * @param board The game board.
-     * @param row The row to check.
-     * @param col The column to check.
-     * @return true if the square contains an enemy piece, false otherwise.
+     * @return The value in centipawns.
      */
-    protected boolean isEnemyPiece(Piece[][] board, int row, int col) {
-        if (!isValidPosition(row, col)) {
-            return false;
-        }
-
-        Piece targetPiece = board[row][col];
-        return targetPiece != null && !targetPiece.getColor().equals(this.color);
+    public int getValue() {
+        return VALUES[type];
     }
 
     /**
-     * Checks if a square is empty.
+     * Gets the compact code identifying this piece.
+     * White pieces use codes 0-5 and black pieces 6-11, in type order.
      *
-     * @param board The game board.
-     * @param row The row to check.
-     * @param col The column to check.
-     * @return true if the square is empty, false otherwise.
+     * @return The piece code (0-11).
      */
-    protected boolean isEmpty(Piece[][] board, int row, int col) {
-        if (!isValidPosition(row, col)) {
-            return false;
-        }
-
-        return board[row][col] == null;
+    public int getCode() {
+        return code;
     }
 
     /**
-     * Returns a string representation of this piece.
+     * Gets the squares this piece attacks from the given square.
+     * This method must be implemented by each concrete piece class.
      *
-     * @return A string in the format "color PieceType".
+     * @param square The square the piece stands on (row * 8 + col).
+     * @param occupied Bitmask of all occupied squares (bit n = square n).
+     * @return The attacked squares as a bitmask.
      */
-    @Override
-    public String toString() {
-        return color + " " + this.getClass().getSimpleName();
+    public abstract long attacks(int square, long occupied);
+
+    /**
+     * Gets the squares this piece can move to from the given square.
+     * For every piece except the pawn these are the attacked squares not
+     * occupied by a piece of its own color.
+     *
+     * @param square The square the piece stands on (row * 8 + col).
+     * @param own Bitmask of squares occupied by this piece's side.
+     * @param occupied Bitmask of all occupied squares.
+     * @return The target squares as a bitmask.
+     */
+    public long moveTargets(int square, long own, long occupied) {
+        return attacks(square, occupied) & ~own;
     }
 
     /**
-     * Checks if two pieces are equal based on their color, type, and position.
+     * Calculates all possible moves for this piece from the given square.
      *
-     * @param obj The object to compare with.
-     * @return true if the pieces are equal, false otherwise.
+     * @param board The current board state, indexed row * 8 + col.
+     * @param square The square the piece stands on (row * 8 + col).
+     * @return The target squares of the possible moves.
      */
-    @Override
-    public boolean equals(Object obj) {
-        if (this == obj) return true;
-        if (obj == null || getClass() != obj.getClass()) return false;
-        
-        Piece piece = (Piece) obj;
-        return row == piece.row && col == piece.col && color.equals(piece.color);
+    public List<Square> possibleMoves(Piece[] board, int square) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0L;
+        long own = 0L;
+        long occupied = 0L;
+        for (int i = 0; i < 64; i++) {
+            if (board[i] != null) {
+                occupied |= 1L << i;
+                if (board[i].color == color) {
+                    own |= 1L << i;
+                }
+            }
+        }
+
+        long targets = moveTargets(square, own, occupied);
+        List<Square> moves = new ArrayList<>(Long.bitCount(targets));
+        for (; targets != 0; targets &= targets - 1) {
+            moves.add(Square.of(Long.numberOfTrailingZeros(targets)));
+        }
+        if (Metrics.ENABLED) {
+            Metrics.MOVE_GENERATION.record(System.nanoTime() - start);
+        }
+        return moves;
     }
 
     /**
-     * Generates a hash code for this piece.
+     * Returns a string representation of this piece.
      *
-     * @return The hash code.
+     * @return A string in the format "color PieceType".
      */
     @Override
-    public int hashCode() {
-        return color.hashCode() + row * 8 + col;
+    public String toString() {
+        return color + " " + this.getClass().getSimpleName();
     }
 }
-
@@ -0,0 +1,234 @@
+package pieces;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+
+import metrics.ComputationEvent;
+import utils.TableCache;
+
+/**
+ * Sliding-piece attack generation using fancy magic bitboards.
+ * For every square the relevant blockers are masked out of the occupancy,
+ * multiplied by a magic number and shifted down to an index into a shared
+ * attack table, so a rook or bishop attack set is a single table lookup.
+ * Magic numbers and tables are generated the first time the class is
+ * loaded and kept in the {@link TableCache} so later launches only map them.
+ */
+public final class SlidingAttacks {
+    /** Bump whenever the generated magics or table layout change. */
+    private static final int CACHE_VERSION = 1;
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] ROOK_MAGICS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final long[] ROOK_TABLE;
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final long[] BISHOP_MAGICS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] BISHOP_TABLE;
+
+    static {
+        int rookSize = computeMasks(ROOK_DIRECTIONS, ROOK_MASKS, ROOK_SHIFTS, ROOK_OFFSETS);
+        int bishopSize = computeMasks(BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_SHIFTS, BISHOP_OFFSETS);
+        ROOK_TABLE = new long[rookSize];
+        BISHOP_TABLE = new long[bishopSize];
+
+        // Magics followed by the attack table, first for rooks then for bishops
+        int bytes = (64 + rookSize + 64 + bishopSize) * Long.BYTES;
+        ByteBuffer data = TableCache.load("sliding-attacks", CACHE_VERSION, bytes, SlidingAttacks::generate);
+        LongBuffer longs = data.asLongBuffer();
+        longs.get(ROOK_MAGICS).get(ROOK_TABLE).get(BISHOP_MAGICS).get(BISHOP_TABLE);
+    }
+
+    private SlidingAttacks() {
+    }
+
+    /**
+     * Gets the squares a rook on the given square attacks.
+     *
+     * @param square The rook's square (0-63).
+     * @param occupied Bitmask of all occupied squares.
+     * @return The attacked squares as a bitmask, including the first blocker on each ray.
+     */
+    public static long rook(int square, long occupied) {
+        return ROOK_TABLE[ROOK_OFFSETS[square]
+                + (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    /**
+     * Gets the squares a bishop on the given square attacks.
+     *
+     * @param square The bishop's square (0-63).
+     * @param occupied Bitmask of all occupied squares.
+     * @return The attacked squares as a bitmask, including the first blocker on each ray.
+     */
+    public static long bishop(int square, long occupied) {
+        return BISHOP_TABLE[BISHOP_OFFSETS[square]
+                + (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    /**
+     * Gets the squares a queen on the given square attacks.
+     *
+     * @param square The queen's square (0-63).
+     * @param occupied Bitmask of all occupied squares.
+     * @return The attacked squares as a bitmask, including the first blocker on each ray.
+     */
+    public static long queen(int square, long occupied) {
+        return rook(square, occupied) | bishop(square, occupied);
+    }
+
+    /**
+     * Computes the relevant-occupancy masks, index shifts and table offsets.
+     *
+     * @param directions The ray directions of the piece.
+     * @param masks Receives the relevant-occupancy mask per square.
+     * @param shifts Receives the index shift per square.
+     * @param offsets Receives the start of each square's slice of the table.
+     * @return The total size of the attack table.
+     */
+    private static int computeMasks(int[][] directions, long[] masks, int[] shifts, int[] offsets) {
+        int total = 0;
+        for (int square = 0; square < 64; square++) {
+            masks[square] = relevantMask(square, directions);
+            shifts[square] = 64 - Long.bitCount(masks[square]);
+            offsets[square] = total;
+            total += 1 << Long.bitCount(masks[square]);
+        }
+        return total;
+    }
+
+    /**
+     * Finds magic numbers for every square and writes them, together with the
+     * filled attack tables, to the cache buffer.
+     *
+     * @param out The buffer to fill, laid out as rook magics, rook table,
+     *            bishop magics, bishop table.
+     */
+    private static void generate(ByteBuffer out) {
+        ComputationEvent event = new ComputationEvent("sliding attack table generation");
+        Xorshift random = new Xorshift(0x9E3779B97F4A7C15L);
+        LongBuffer longs = out.asLongBuffer();
+
+        long[] magics = new long[64];
+        for (int square = 0; square < 64; square++) {
+            magics[square] = findMagic(square, ROOK_DIRECTIONS, ROOK_MASKS[square], ROOK_SHIFTS[square],
+                                       ROOK_TABLE, ROOK_OFFSETS[square], random);
+        }
+        longs.put(magics).put(ROOK_TABLE);
+
+        for (int square = 0; square < 64; square++) {
+            magics[square] = findMagic(square, BISHOP_DIRECTIONS, BISHOP_MASKS[square], BISHOP_SHIFTS[square],
+                                       BISHOP_TABLE, BISHOP_OFFSETS[square], random);
+        }
+        longs.put(magics).put(BISHOP_TABLE);
+        event.finish(ROOK_TABLE.length + BISHOP_TABLE.length);
+    }
+
+    /**
+     * Searches for a magic number that maps every blocker subset of a square
+     * to a table slot without destructive collisions, and fills that slice.
+     */
+    private static long findMagic(int square, int[][] directions, long mask, int shift,
+                                  long[] table, int offset, Xorshift random) {
+        int size = 1 << (64 - shift);
+        long[] occupancies = new long[size];
+        long[] attacks = new long[size];
+
+        // Enumerate all subsets of the mask (carry-rippler)
+        long subset = 0L;
+        int count = 0;
+        do {
+            occupancies[count] = subset;
+            attacks[count] = slide(square, subset, directions);
+            count++;
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+
+        int[] used = new int[size];
+        for (int attempt = 1; ; attempt++) {
+            long magic = random.nextLong() & random.nextLong() & random.nextLong();
+            if (Long.bitCount((mask * magic) >>> 56) < 6) {
+                continue;
+            }
+
+            boolean collision = false;
+            for (int i = 0; i < count && !collision; i++) {
+                int index = (int) ((occupancies[i] * magic) >>> shift);
+                if (used[index] != attempt) {
+                    used[index] = attempt;
+                    table[offset + index] = attacks[i];
+                } else if (table[offset + index] != attacks[i]) {
+                    collision = true;
+                }
+            }
+            if (!collision) {
+                return magic;
+            }
+        }
+    }
+
+    /**
+     * Computes the blocker squares that matter for a slider on a square.
+     * Edge squares at the end of each ray are left out since they never block anything.
+     */
+    private static long relevantMask(int square, int[][] directions) {
+        long mask = 0L;
+        for (int[] dir : directions) {
+            int r = (square >> 3) + dir[0];
+            int c = (square & 7) + dir[1];
+            while (r + dir[0] >= 0 && r + dir[0] < 8 && c + dir[1] >= 0 && c + dir[1] < 8) {
+                mask |= 1L << (r * 8 + c);
+                r += dir[0];
+                c += dir[1];
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Computes slider attacks by walking each ray until it leaves the board or hits a blocker.
+     * Only used while building the tables.
+     */
+    private static long slide(int square, long occupied, int[][] directions) {
+        long attacks = 0L;
+        for (int[] dir : directions) {
+            int r = (square >> 3) + dir[0];
+            int c = (square & 7) + dir[1];
+            while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                long bit = 1L << (r * 8 + c);
+                attacks |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                r += dir[0];
+                c += dir[1];
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Small xorshift generator so magic generation is deterministic from run to run.
+     */
+    private static final class Xorshift {
+        private long state;
+
+        Xorshift(long seed) {
+            this.state = seed;
+        }
+
+        long nextLong() {
+            state ^= state >>> 12;
+            state ^= state << 25;
+            state ^= state >>> 27;
+            return state * 0x2545F4914F6CDD1DL;
+        }
+    }
+}
@@ -3,6 +3,8 @@ package utils;
 /**
  * Represents a position on the chess board.
  * Provides utility methods for position handling and validation.
+ * Positions are mutable and allocated per use; code that only needs to name
+ * a square should pass its index (row * 8 + col) or use {@link Square}.
  */
 public class Position {
     private int row;
@@ -26,12 +28,21 @@ public class Position {
      * @throws IllegalArgumentException if the notation is invalid.
      */
     public Position(String notation) {
-        int[] coords = notationToCoords(notation);
-        if (coords == null) {
+        Square square = Square.parse(notation);
+        if (square == null) {
             throw new IllegalArgumentException("Invalid chess notation: " + notation);
         }
-        this.row = coords[0];
-        this.col = coords[1];
+        this.row = square.getRow();
+        this.col = square.getCol();
+    }
+
+    /**
+     * Constructs a new position for a square.
+     *
+     * @param square The square.
+     */
+    public Position(Square square) {
+        this(square.getRow(), square.getCol());
     }
 
     /**
@@ -76,7 +87,16 @@ public class Position {
      * @return true if the position is valid, false otherwise.
      */
     public boolean isValid() {
-        return row >= 0 && row < 8 && col >= 0 && col < 8;
+        return Square.isValid(row, col);
+    }
+
+    /**
+     * Gets the square at this position.
+     *
+     * @return The shared Square instance, or null if the position is off the board.
+     */
+    public Square toSquare() {
+        return Square.of(row, col);
     }
 
     /**
@@ -85,12 +105,8 @@ public class Position {
      * @return The chess notation string (e.g., "e4").
      */
     public String toNotation() {
-        if (!isValid()) {
-            return null;
-        }
-        char fileChar = (char) ('A' + col);
-        char rankChar = (char) ('1' + (7 - row));
-        return "" + fileChar + rankChar;
+        Square square = toSquare();
+        return square == null ? null : square.getNotation();
     }
 
     /**
@@ -100,27 +116,8 @@ public class Position {
      * @return An array containing [row, col] coordinates, or null if invalid.
      */
     public static int[] notationToCoords(String notation) {
-        if (notation == null || notation.length() != 2) {
-            return null;
-        }
-        
-        char fileChar = notation.toUpperCase().charAt(0);
-        char rankChar = notation.charAt(1);
-        
-        // Validate file (A-H)
-        if (fileChar < 'A' || fileChar > 'H') {
-            return null;
-        }
-        
-        // Validate rank (1-8)
-        if (rankChar < '1' || rankChar > '8') {
-            return null;
-        }
-        
-        int col = fileChar - 'A'; // A=0, B=1, ..., H=7
-        int row = 8 - Character.getNumericValue(rankChar); // 8=0, 7=1, ..., 1=7
-        
-        return new int[]{row, col};
+        Square square = Square.parse(notation);
+        return square == null ? null : new int[]{square.getRow(), square.getCol()};
     }
 
     /**
@@ -0,0 +1,190 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * A square of the chess board.
+ *
+ * Squares are identified everywhere by their index, row * 8 + col, where row
+ * 0 is rank 8 and col 0 is file a (so a8 = 0 and h1 = 63). The 64 Square
+ * objects are created once with their file, rank and notation precomputed;
+ * {@link #of(int)} and {@link #parse(CharSequence)} return these shared
+ * instances, so converting between indexes, objects and notation never
+ * allocates.
+ */
+public final class Square {
+    /** Value returned by {@link #index(CharSequence, int)} for text that is not a square. */
+    public static final int NONE = -1;
+
+    private static final Square[] SQUARES = new Square[64];
+    // Maps a file or rank character to its value; -1 for any other character
+    private static final byte[] FILE_OF_CHAR = new byte[128];
+    private static final byte[] ROW_OF_CHAR = new byte[128];
+
+    static {
+        Arrays.fill(FILE_OF_CHAR, (byte) -1);
+        Arrays.fill(ROW_OF_CHAR, (byte) -1);
+        for (int i = 0; i < 8; i++) {
+            FILE_OF_CHAR['a' + i] = (byte) i;
+            FILE_OF_CHAR['A' + i] = (byte) i;
+            ROW_OF_CHAR['8' - i] = (byte) i;
+        }
+        for (int i = 0; i < 64; i++) {
+            SQUARES[i] = new Square(i);
+        }
+    }
+
+    private final int index;
+    private final int row;
+    private final int col;
+    private final String notation;
+
+    private Square(int index) {
+        this.index = index;
+        this.row = index >> 3;
+        this.col = index & 7;
+        this.notation = new String(new char[]{(char) ('a' + col), (char) ('8' - row)});
+    }
+
+    /**
+     * Gets the square with the given index.
+     *
+     * @param index The square index (row * 8 + col, 0-63).
+     * @return The shared Square instance.
+     * @throws IndexOutOfBoundsException if the index is not 0-63.
+     */
+    public static Square of(int index) {
+        return SQUARES[index];
+    }
+
+    /**
+     * Gets the square at the given board coordinates.
+     *
+     * @param row The row (0-7, 0 is rank 8).
+     * @param col The column (0-7, 0 is file a).
+     * @return The shared Square instance, or null if the coordinates are off the board.
+     */
+    public static Square of(int row, int col) {
+        return isValid(row, col) ? SQUARES[row * 8 + col] : null;
+    }
+
+    /**
+     * Parses chess notation such as "e4" or "E4".
+     *
+     * @param notation The notation.
+     * @return The shared Square instance, or null if the text is not a square.
+     */
+    public static Square parse(CharSequence notation) {
+        if (notation == null || notation.length() != 2) {
+            return null;
+        }
+        int index = index(notation, 0);
+        return index == NONE ? null : SQUARES[index];
+    }
+
+    /**
+     * Reads a square such as "e4" or "E4" at a position in some text.
+     *
+     * @param text The text.
+     * @param start The position of the file letter; the rank digit follows it.
+     * @return The square index (row * 8 + col), or {@link #NONE} if there is no square there.
+     */
+    public static int index(CharSequence text, int start) {
+        if (start < 0 || start + 1 >= text.length()) {
+            return NONE;
+        }
+        char file = text.charAt(start);
+        char rank = text.charAt(start + 1);
+        if (file >= 128 || rank >= 128) {
+            return NONE;
+        }
+        int col = FILE_OF_CHAR[file];
+        int row = ROW_OF_CHAR[rank];
+        return (col | row) < 0 ? NONE : row * 8 + col;
+    }
+
+    /**
+     * Gets the notation of a square index without creating a string.
+     *
+     * @param index The square index (0-63).
+     * @return The lowercase notation, e.g. "e4".
+     */
+    public static String name(int index) {
+        return SQUARES[index].notation;
+    }
+
+    /**
+     * Checks if board coordinates are on the board.
+     *
+     * @param row The row.
+     * @param col The column.
+     * @return true if both are 0-7.
+     */
+    public static boolean isValid(int row, int col) {
+        return (row | col) >= 0 && row < 8 && col < 8;
+    }
+
+    /**
+     * Gets the square index.
+     *
+     * @return row * 8 + col (0-63).
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Gets the board row.
+     *
+     * @return The row (0-7, 0 is rank 8).
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * Gets the board column.
+     *
+     * @return The column (0-7, 0 is file a).
+     */
+    public int getCol() {
+        return col;
+    }
+
+    /**
+     * Gets the file.
+     *
+     * @return The file (0-7 for a-h); the same as the column.
+     */
+    public int getFile() {
+        return col;
+    }
+
+    /**
+     * Gets the rank.
+     *
+     * @return The rank (1-8).
+     */
+    public int getRank() {
+        return 8 - row;
+    }
+
+    /**
+     * Gets the square in chess notation.
+     *
+     * @return The lowercase notation, e.g. "e4".
+     */
+    public String getNotation() {
+        return notation;
+    }
+
+    /**
+     * Returns the square in chess notation.
+     *
+     * @return The lowercase notation, e.g. "e4".
+     */
+    @Override
+    public String toString() {
+        return notation;
+    }
+}
@@ -0,0 +1,230 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Disk cache for precomputed lookup tables.
+ * A table is generated once, written to a versioned and checksummed binary
+ * file, and memory-mapped on later launches. If the file is missing, has a
+ * different version or size, or fails its checksum, the table is generated
+ * again and the file is rewritten.
+ *
+ * The cache directory defaults to ".cache/chess-tables" under the user's
+ * home directory and can be changed with the system property
+ * chess.tableCache; setting it to "off" disables the cache so tables are
+ * always generated in memory. The directory is created readable only by
+ * its owner, and on POSIX file systems a cached file is ignored unless it
+ * and its directory belong to the current user and nobody else can write
+ * to them, since the checksum alone does not stop a planted table. A
+ * configured directory that fails this check (a shared one such as /tmp)
+ * is reported once and the default directory is used instead.
+ */
+public final class TableCache {
+    private static final int FILE_MAGIC = 0x43485442; // "CHTB"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+    private static boolean sharedDirectoryReported;
+
+    private TableCache() {
+    }
+
+    /**
+     * Loads a table from the cache, generating and storing it if needed.
+     * The returned buffer is little-endian, positioned at 0 and holds exactly
+     * size bytes; it must be treated as read-only.
+     *
+     * @param name The table name, used as the file name.
+     * @param version The table version; bump it whenever the generator output changes.
+     * @param size The size of the table in bytes.
+     * @param generator Fills a buffer of the given size with the table contents.
+     * @return The table contents.
+     */
+    public static ByteBuffer load(String name, int version, int size, Consumer<ByteBuffer> generator) {
+        Path file = cacheFile(name);
+        if (file != null) {
+            ByteBuffer cached = read(file, version, size);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        ByteBuffer table = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        generator.accept(table);
+        table.clear();
+
+        if (file != null) {
+            write(file, version, table);
+        }
+        return table;
+    }
+
+    /**
+     * Resolves the cache file for a table.
+     *
+     * @param name The table name.
+     * @return The file path, or null if caching is disabled.
+     */
+    private static Path cacheFile(String name) {
+        String dir = System.getProperty("chess.tableCache");
+        if ("off".equalsIgnoreCase(dir)) {
+            return null;
+        }
+        Path base = Paths.get(System.getProperty("user.home"), ".cache", "chess-tables");
+        if (dir != null) {
+            Path configured = Paths.get(dir);
+            if (Files.exists(configured) && !isPrivate(configured)) {
+                reportSharedDirectory(configured, base);
+            } else {
+                base = configured;
+            }
+        }
+        return base.resolve(name + ".bin");
+    }
+
+    /**
+     * Warns, once per run, that the configured cache directory is not private.
+     */
+    private static synchronized void reportSharedDirectory(Path configured, Path fallback) {
+        if (!sharedDirectoryReported) {
+            sharedDirectoryReported = true;
+            System.err.println("Table cache directory " + configured + " can be written by other users; using "
+                               + fallback + " instead");
+        }
+    }
+
+    /**
+     * Maps a cache file and validates its header and checksum.
+     *
+     * @return The mapped table, or null if the file is missing or stale.
+     */
+    private static ByteBuffer read(Path file, int version, int size) {
+        if (!Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS)
+                || !isPrivate(file.getParent()) || !isPrivate(file)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != (long) HEADER_SIZE + size) {
+                return null;
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (mapped.getInt(0) != FILE_MAGIC || mapped.getInt(4) != FORMAT_VERSION
+                    || mapped.getInt(8) != version || mapped.getInt(12) != size) {
+                return null;
+            }
+
+            ByteBuffer table = mapped.position(HEADER_SIZE).slice().order(ByteOrder.LITTLE_ENDIAN);
+            if (checksum(table) != mapped.getInt(16)) {
+                return null;
+            }
+            return table;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes a table to its cache file through a temporary file and an atomic rename,
+     * so concurrent launches never see a half-written file. Failures are ignored
+     * since the table is already available in memory.
+     */
+    private static void write(Path file, int version, ByteBuffer table) {
+        Path temp = null;
+        try {
+            createDirectories(file.getParent());
+            temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(FILE_MAGIC).putInt(FORMAT_VERSION).putInt(version)
+                  .putInt(table.remaining()).putInt(checksum(table)).putInt(0);
+            header.flip();
+
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer body = table.duplicate();
+                while (header.hasRemaining() || body.hasRemaining()) {
+                    channel.write(new ByteBuffer[]{header, body});
+                }
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | UnsupportedOperationException e) {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // Nothing more to clean up
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the cache directory and any missing parents, owner-only where
+     * the file system supports POSIX permissions.
+     */
+    private static void createDirectories(Path dir) throws IOException {
+        if (Files.isDirectory(dir)) {
+            return;
+        }
+        if (dir.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.createDirectories(dir, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+        } else {
+            Files.createDirectories(dir);
+        }
+    }
+
+    /**
+     * Checks that a cache file or directory belongs to the current user and
+     * that no other user can write to it. Always true on file systems
+     * without POSIX attributes.
+     */
+    private static boolean isPrivate(Path path) {
+        PosixFileAttributeView view = Files.getFileAttributeView(path, PosixFileAttributeView.class,
+                                                                 LinkOption.NOFOLLOW_LINKS);
+        if (view == null) {
+            return true;
+        }
+        try {
+            PosixFileAttributes attributes = view.readAttributes();
+            UserPrincipal user = FileSystems.getDefault().getUserPrincipalLookupService()
+                                            .lookupPrincipalByName(System.getProperty("user.name"));
+            Set<PosixFilePermission> permissions = attributes.permissions();
+            return attributes.owner().equals(user)
+                   && !permissions.contains(PosixFilePermission.GROUP_WRITE)
+                   && !permissions.contains(PosixFilePermission.OTHERS_WRITE);
+        } catch (IOException | UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Computes the CRC32C checksum of a buffer's remaining bytes without moving its position.
+     */
+    private static int checksum(ByteBuffer buffer) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate());
+        return (int) crc.getValue();
+    }
+}
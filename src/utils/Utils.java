@@ -12,33 +12,19 @@ public class Utils {
      * @return A Position object, or null if invalid.
      */
     public static Position notationToPosition(String input) {
-        if (input == null || input.length() != 2)
-            return null;
-
-        char file = Character.toUpperCase(input.charAt(0));
-        char rank = input.charAt(1);
-
-        int col = file - 'A';
-        int row = 8 - Character.getNumericValue(rank); // row 0 = rank 8
-
-        if (col < 0 || col > 7 || row < 0 || row > 7)
-            return null;
-
-        return new Position(row, col);
+        Square square = Square.parse(input);
+        return square == null ? null : new Position(square);
     }
 
     /**
-     * Converts a Position object to chess notation (e.g., E2).
+     * Converts a Position object to chess notation (e.g., e2).
      *
      * @param pos A valid Position object
-     * @return A string like "E2"
+     * @return A string like "e2", or null if the position is off the board
      */
     public static String positionToNotation(Position pos) {
-        if (pos == null || !pos.isValid()) return null;
-
-        char file = (char) ('A' + pos.getCol());
-        int rank = 8 - pos.getRow();
-        return String.valueOf(file) + rank;
+        if (pos == null) return null;
+        return pos.toNotation();
     }
 
     /**
@@ -48,12 +34,7 @@ public class Utils {
      * @return true if valid
      */
     public static boolean isValidNotation(String s) {
-        if (s == null || s.length() != 2) return false;
-
-        char file = Character.toUpperCase(s.charAt(0));
-        char rank = s.charAt(1);
-
-        return file >= 'A' && file <= 'H' && rank >= '1' && rank <= '8';
+        return Square.parse(s) != null;
     }
 }
 